@@ -2,8 +2,10 @@ package com.example.securefileapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SecureFileAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(SecureFileAppApplication.class, args);
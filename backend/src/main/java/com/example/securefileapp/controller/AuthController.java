@@ -1 +1,85 @@
- 
\ No newline at end of file
+package com.example.securefileapp.controller;
+
+import com.example.securefileapp.model.User;
+import com.example.securefileapp.repository.UserRepository;
+import com.example.securefileapp.security.JwtUtil;
+import com.example.securefileapp.security.VerifiedTokenCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AuthController {
+    
+    private final AuthenticationManager authenticationManager;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    
+    @PostMapping("/register")
+    public ResponseEntity<Map<String, Object>> register(@RequestBody Map<String, String> request) {
+        String username = request.get("username");
+        String email = request.get("email");
+        String password = request.get("password");
+        
+        if (username == null || username.isBlank() || email == null || email.isBlank()
+                || password == null || password.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Username, email and password are required"));
+        }
+        if (userRepository.findByUsername(username).isPresent()) {
+            return ResponseEntity.status(409).body(Map.of("error", "Username already taken"));
+        }
+        
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode(password));
+        if (request.get("preferredLanguage") != null) {
+            user.setPreferredLanguage(request.get("preferredLanguage"));
+        }
+        userRepository.save(user);
+        
+        log.info("Registered user: {}", username);
+        return ResponseEntity.ok(Map.of("token", jwtUtil.generateToken(username), "username", username));
+    }
+    
+    @PostMapping("/login")
+    public ResponseEntity<Map<String, Object>> login(@RequestBody Map<String, String> request) {
+        String username = request.get("username");
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, request.get("password")));
+            return ResponseEntity.ok(Map.of("token", jwtUtil.generateToken(username), "username", username));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid username or password"));
+        }
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        if (!authorization.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().build();
+        }
+        String token = authorization.substring("Bearer ".length());
+        try {
+            tokenCache.revoke(token, jwtUtil.parseClaims(token).getExpiration().getTime());
+        } catch (Exception e) {
+            // Invalid or already expired: nothing left to revoke
+            log.debug("Logout with unusable token: {}", e.getMessage());
+        }
+        return ResponseEntity.ok().build();
+    }
+}
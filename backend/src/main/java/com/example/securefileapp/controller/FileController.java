@@ -1,22 +1,23 @@
 package com.example.securefileapp.controller;
 
+import com.example.securefileapp.dto.KeysetCursor;
+import com.example.securefileapp.dto.KeysetPage;
+import com.example.securefileapp.dto.StoredFileSummary;
 import com.example.securefileapp.model.StoredFile;
 import com.example.securefileapp.model.User;
 import com.example.securefileapp.repository.StoredFileRepository;
-import com.example.securefileapp.repository.UserRepository;
+import com.example.securefileapp.service.DocumentAnalysisService;
+import com.example.securefileapp.service.FileDownloadService;
 import com.example.securefileapp.service.FileStorageService;
+import com.example.securefileapp.service.StorageReportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
@@ -26,43 +27,97 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
+    private static final int MAX_LIST_PAGE_SIZE = 200;
+
     @Autowired
     private FileStorageService fileStorageService;
     @Autowired
-    private UserRepository userRepository;
-    @Autowired
     private StoredFileRepository fileRepository;
+    @Autowired
+    private FileDownloadService fileDownloadService;
+    @Autowired
+    private DocumentAnalysisService documentAnalysisService;
+    @Autowired
+    private StorageReportService storageReportService;
 
     @PostMapping("/upload")
-    public StoredFile uploadFile(@RequestParam("file") MultipartFile file, @AuthenticationPrincipal UserDetails userDetails) throws IOException {
-        User user = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
+    public StoredFile uploadFile(@RequestParam("file") MultipartFile file, @AuthenticationPrincipal User user) throws IOException {
         return fileStorageService.storeFile(file, user);
     }
 
     @GetMapping
-    public List<StoredFile> listFiles(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
-        return fileStorageService.getFilesByOwner(user);
+    public ResponseEntity<Map<String, Object>> listFiles(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "50") int size,
+                                                         @RequestParam(required = false) String contentType,
+                                                         @RequestParam(required = false) String namePrefix,
+                                                         @AuthenticationPrincipal User user) {
+        KeysetCursor<Instant> position;
+        try {
+            position = KeysetCursor.decode(cursor, Instant::parse);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_LIST_PAGE_SIZE));
+        List<StoredFileSummary> rows = fileStorageService.listFiles(user, position, contentType, namePrefix,
+                KeysetPage.limit(pageSize));
+        return ResponseEntity.ok(KeysetPage.of(rows, pageSize,
+                file -> new KeysetCursor<>(file.getUploadTime(), file.getId())));
     }
 
     @GetMapping("/download/{id}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
+    public void downloadFile(@PathVariable Long id, @AuthenticationPrincipal User user,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
         StoredFile file = fileRepository.findById(id).orElseThrow();
         if (!file.getOwner().getId().equals(user.getId())) {
+            response.sendError(403);
+            return;
+        }
+        fileDownloadService.serve(file, request, response);
+    }
+
+    @GetMapping("/storage-report")
+    public ResponseEntity<Map<String, Object>> storageReport(@AuthenticationPrincipal User user) {
+        if (!Boolean.TRUE.equals(user.getIsAdmin())) {
             return ResponseEntity.status(403).build();
         }
-        File diskFile = fileStorageService.getFileOnDisk(file);
-        Resource resource = new FileSystemResource(diskFile);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalFilename() + "\"")
-                .contentType(MediaType.parseMediaType(file.getContentType()))
-                .body(resource);
+        return ResponseEntity.ok(storageReportService.report());
+    }
+
+    @PostMapping("/{id}/analyze")
+    public ResponseEntity<?> analyzeFile(@PathVariable Long id, @RequestParam(required = false) String language,
+                                         @AuthenticationPrincipal User user) throws IOException {
+        Optional<StoredFile> fileOpt = fileRepository.findById(id);
+        if (fileOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StoredFile file = fileOpt.get();
+        if (!file.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+        if (!documentAnalysisService.isAnalyzable(file)) {
+            return ResponseEntity.status(415).body(Map.of("error", "Only text documents can be analyzed"));
+        }
+        return ResponseEntity.ok(documentAnalysisService.analyze(file, language));
+    }
+
+    @DeleteMapping("/{id}")
+    public void deleteFile(@PathVariable Long id, @AuthenticationPrincipal User user,
+                           HttpServletResponse response) throws IOException {
+        Optional<StoredFile> fileOpt = fileRepository.findById(id);
+        if (fileOpt.isEmpty()) {
+            response.sendError(404);
+            return;
+        }
+        if (!fileOpt.get().getOwner().getId().equals(user.getId())) {
+            response.sendError(403);
+            return;
+        }
+        fileStorageService.deleteFile(fileOpt.get());
+        response.setStatus(204);
     }
 
     @PostMapping("/share/{id}")
-    public Map<String, String> shareFile(@PathVariable Long id, @RequestParam(defaultValue = "3600") long expirySeconds, @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
+    public Map<String, String> shareFile(@PathVariable Long id, @RequestParam(defaultValue = "3600") long expirySeconds, @AuthenticationPrincipal User user) {
         StoredFile file = fileRepository.findById(id).orElseThrow();
         if (!file.getOwner().getId().equals(user.getId())) {
             throw new RuntimeException("Not authorized");
@@ -71,19 +126,31 @@ public class FileController {
         return Map.of("shareToken", file.getShareToken(), "expiresAt", file.getShareTokenExpiry().toString());
     }
 
+    @DeleteMapping("/share/{id}")
+    public void revokeShare(@PathVariable Long id, @AuthenticationPrincipal User user,
+                            HttpServletResponse response) throws IOException {
+        StoredFile file = fileRepository.findById(id).orElseThrow();
+        if (!file.getOwner().getId().equals(user.getId())) {
+            response.sendError(403);
+            return;
+        }
+        fileStorageService.removeShareToken(file);
+        response.setStatus(204);
+    }
+
     @GetMapping("/shared/{token}")
-    public ResponseEntity<Resource> downloadSharedFile(@PathVariable String token) {
+    public void downloadSharedFile(@PathVariable String token,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
         Optional<StoredFile> fileOpt = fileStorageService.getFileByShareToken(token);
-        if (fileOpt.isEmpty()) return ResponseEntity.notFound().build();
+        if (fileOpt.isEmpty()) {
+            response.sendError(404);
+            return;
+        }
         StoredFile file = fileOpt.get();
         if (file.getShareTokenExpiry() == null || file.getShareTokenExpiry().isBefore(Instant.now())) {
-            return ResponseEntity.status(410).build(); // Gone
+            response.sendError(410); // Gone
+            return;
         }
-        File diskFile = fileStorageService.getFileOnDisk(file);
-        Resource resource = new FileSystemResource(diskFile);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalFilename() + "\"")
-                .contentType(MediaType.parseMediaType(file.getContentType()))
-                .body(resource);
+        fileDownloadService.serve(file, request, response);
     }
-} 
\ No newline at end of file
+}
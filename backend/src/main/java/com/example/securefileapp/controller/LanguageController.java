@@ -72,7 +72,7 @@ public class LanguageController {
                 "accuracy", accuracy
             );
             
-            log.info("Language detected: {} ({}) for text length: {}", 
+            log.debug("Language detected: {} ({}) for text length: {}", 
                     languageName, detectedLanguage, text.length());
             
             return ResponseEntity.ok(response);
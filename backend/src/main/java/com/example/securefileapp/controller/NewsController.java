@@ -1,23 +1,44 @@
 package com.example.securefileapp.controller;
 
+import com.example.securefileapp.dto.AnalysisContentRef;
+import com.example.securefileapp.dto.AnalysisExportFilter;
+import com.example.securefileapp.dto.KeysetCursor;
+import com.example.securefileapp.dto.KeysetPage;
 import com.example.securefileapp.dto.NewsAnalysisRequest;
 import com.example.securefileapp.dto.NewsAnalysisResponse;
+import com.example.securefileapp.dto.NewsAnalysisSummary;
+import com.example.securefileapp.jfr.AnalysisRequestEvent;
 import com.example.securefileapp.model.NewsAnalysis;
 import com.example.securefileapp.model.User;
 import com.example.securefileapp.repository.NewsAnalysisRepository;
+import com.example.securefileapp.repository.UserRepository;
+import com.example.securefileapp.service.AnalysisArchiveService;
+import com.example.securefileapp.service.AnalysisCountService;
+import com.example.securefileapp.service.AnalysisExportService;
+import com.example.securefileapp.service.AnalysisRequestLog;
+import com.example.securefileapp.service.ArticleBodyStore;
 import com.example.securefileapp.service.FakeNewsDetectionService;
+import com.example.securefileapp.service.LanguageStatisticsService;
+import com.example.securefileapp.service.PipelineMetrics;
+import com.example.securefileapp.service.SlowRequestRecorder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/news")
@@ -26,52 +47,147 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class NewsController {
     
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     private final FakeNewsDetectionService fakeNewsDetectionService;
     private final NewsAnalysisRepository newsAnalysisRepository;
+    private final LanguageStatisticsService languageStatisticsService;
+    private final ArticleBodyStore articleBodyStore;
+    private final AnalysisExportService analysisExportService;
+    private final AnalysisArchiveService analysisArchiveService;
+    private final AnalysisCountService analysisCountService;
+    private final UserRepository userRepository;
+    private final PipelineMetrics pipelineMetrics;
+    private final AnalysisRequestLog analysisRequestLog;
+    private final SlowRequestRecorder slowRequestRecorder;
     
     @PostMapping("/analyze")
-    public ResponseEntity<NewsAnalysisResponse> analyzeNews(
+    public ResponseEntity<MappingJacksonValue> analyzeNews(
             @Valid @RequestBody NewsAnalysisRequest request,
+            @RequestParam(defaultValue = "false") boolean timings,
+            @RequestParam(defaultValue = "full") String view,
             Authentication authentication) {
         
+        boolean compact = "compact".equalsIgnoreCase(view);
+        if (!compact && !"full".equalsIgnoreCase(view)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        long startNanos = System.nanoTime();
+        AnalysisRequestEvent requestEvent = new AnalysisRequestEvent();
+        requestEvent.begin();
+        NewsAnalysisResponse response = null;
+        Map<String, Double> stageTimingsMs = null;
+        Exception failure = null;
+        Exception saveFailure = null;
         try {
-            log.info("Received news analysis request for user: {}", authentication.getName());
-            
             // Analyze the news
-            NewsAnalysisResponse response = fakeNewsDetectionService.analyzeNews(request);
+            PipelineMetrics.Timings stageTimings = pipelineMetrics.start();
+            response = fakeNewsDetectionService.analyzeNews(request, stageTimings);
             
             // Save the analysis to database
-            saveAnalysisToDatabase(request, response, authentication);
+            saveFailure = saveAnalysisToDatabase(request, response, authentication, requestEvent);
+            stageTimings.mark(PipelineMetrics.Stage.PERSISTENCE);
+            
+            // Published once the save is done, so the total covers the whole request
+            pipelineMetrics.record(stageTimings, response.getDetectedLanguage(), response.getModelUsed());
+            stageTimingsMs = stageTimings.toMillis();
+            if (timings) {
+                response.setStageTimingsMs(stageTimingsMs);
+            }
             
-            log.info("News analysis completed successfully");
-            return ResponseEntity.ok(response);
+            requestEvent.succeeded = true;
+            MappingJacksonValue body = new MappingJacksonValue(response);
+            if (compact) {
+                body.setSerializationView(NewsAnalysisResponse.Compact.class);
+            }
+            return ResponseEntity.ok(body);
             
         } catch (Exception e) {
-            log.error("Error analyzing news: {}", e.getMessage(), e);
+            failure = e;
             return ResponseEntity.internalServerError().build();
+        } finally {
+            requestEvent.end();
+            if (requestEvent.shouldCommit()) {
+                commitRequestEvent(requestEvent, request, response);
+            }
+            long durationNanos = System.nanoTime() - startNanos;
+            // The one log line per request: always for failures and slow requests, sampled otherwise.
+            // A failed save still answers 200 but is reported here
+            Exception error = failure != null ? failure : saveFailure;
+            analysisRequestLog.record(request, response, authentication.getName(),
+                    durationNanos, stageTimingsMs, error);
+            slowRequestRecorder.record(request, response, authentication.getName(),
+                    durationNanos, stageTimingsMs, error);
         }
     }
     
     @GetMapping("/history")
-    public ResponseEntity<Page<NewsAnalysis>> getAnalysisHistory(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Map<String, Object>> getAnalysisHistory(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
             Authentication authentication) {
         
         try {
             User user = (User) authentication.getPrincipal();
-            Pageable pageable = PageRequest.of(page, size);
+            int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+            Pageable limit = KeysetPage.limit(pageSize);
             
-            Page<NewsAnalysis> analyses = newsAnalysisRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+            KeysetCursor<LocalDateTime> position = KeysetCursor.decode(cursor, LocalDateTime::parse);
+            List<NewsAnalysisSummary> rows = new ArrayList<>(position == null
+                    ? newsAnalysisRepository.findHistoryFirstPage(user.getId(), limit)
+                    : newsAnalysisRepository.findHistoryAfter(
+                            user.getId(), position.getKey(), position.getId(), limit));
+            
+            // Archived analyses are all older than hot ones, so continue into the archive past the hot table
+            if (rows.size() <= pageSize) {
+                NewsAnalysisSummary lastHot = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+                LocalDateTime beforeCreatedAt = lastHot != null ? lastHot.getCreatedAt()
+                        : position != null ? position.getKey() : null;
+                Long beforeId = lastHot != null ? lastHot.getId() : position != null ? position.getId() : null;
+                rows.addAll(analysisArchiveService.findHistory(
+                        user.getId(), beforeCreatedAt, beforeId, pageSize + 1 - rows.size()));
+            }
             
-            return ResponseEntity.ok(analyses);
+            return ResponseEntity.ok(KeysetPage.of(rows, pageSize,
+                    analysis -> new KeysetCursor<>(analysis.getCreatedAt(), analysis.getId())));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error fetching analysis history: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    @GetMapping("/history/{analysisId}/content")
+    public ResponseEntity<Map<String, Object>> getAnalysisContent(
+            @PathVariable Long analysisId,
+            Authentication authentication) {
+        
+        try {
+            User user = (User) authentication.getPrincipal();
+            
+            Optional<AnalysisContentRef> ref = newsAnalysisRepository.findContentRefByIdAndUserId(analysisId, user.getId());
+            if (ref.isEmpty()) {
+                ref = analysisArchiveService.findContentRef(user.getId(), analysisId);
+            }
+            if (ref.isEmpty() || ref.get().getContentHash() == null) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            Map<String, Double> featureScores = ref.get().decodeFeatureScores();
+            return articleBodyStore.load(ref.get().getContentHash())
+                    .map(content -> ResponseEntity.ok(Map.<String, Object>of(
+                            "id", analysisId, "newsContent", content, "featureScores", featureScores)))
+                    .orElse(ResponseEntity.notFound().build());
+            
+        } catch (Exception e) {
+            log.error("Error fetching analysis content: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @PostMapping("/feedback/{analysisId}")
     public ResponseEntity<Void> provideFeedback(
             @PathVariable Long analysisId,
@@ -109,8 +225,9 @@ public class NewsController {
         try {
             User user = (User) authentication.getPrincipal();
             
-            Long totalAnalyses = newsAnalysisRepository.countTotalByUser(user);
-            Long fakeNewsCount = newsAnalysisRepository.countFakeNewsByUser(user);
+            long[] archived = analysisArchiveService.countByUser(user.getId());
+            Long totalAnalyses = newsAnalysisRepository.countTotalByUser(user) + archived[0];
+            Long fakeNewsCount = newsAnalysisRepository.countFakeNewsByUser(user) + archived[1];
             
             double fakeNewsPercentage = totalAnalyses > 0 ? 
                 (double) fakeNewsCount / totalAnalyses * 100 : 0;
@@ -131,9 +248,11 @@ public class NewsController {
     }
     
     @GetMapping("/languages")
-    public ResponseEntity<List<Object[]>> getLanguageStatistics() {
+    public ResponseEntity<List<Map<String, Object>>> getLanguageStatistics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<Object[]> languageStats = newsAnalysisRepository.getStatisticsByLanguage();
+            List<Map<String, Object>> languageStats = languageStatisticsService.getStatisticsByLanguage(from, to);
             return ResponseEntity.ok(languageStats);
             
         } catch (Exception e) {
@@ -142,16 +261,58 @@ public class NewsController {
         }
     }
     
-    private void saveAnalysisToDatabase(NewsAnalysisRequest request, 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAnalyses(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) Double minConfidence,
+            Authentication authentication) {
+        
+        User user = (User) authentication.getPrincipal();
+        AnalysisExportService.Format exportFormat;
+        try {
+            exportFormat = AnalysisExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // Admins export everything; other users only their own analyses
+        Long userId = Boolean.TRUE.equals(user.getIsAdmin()) ? null : user.getId();
+        AnalysisExportFilter filter = new AnalysisExportFilter(userId, from, to, language, model, minConfidence);
+        
+        StreamingResponseBody body = outputStream -> {
+            long rows = analysisExportService.export(filter, exportFormat, outputStream);
+            log.info("Exported {} analyses as {}", rows, exportFormat);
+        };
+        
+        MediaType contentType = exportFormat == AnalysisExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv; charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"analyses." + exportFormat.name().toLowerCase() + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+    
+    // Returns the failure instead of throwing, so a failed save does not fail the analysis
+    private Exception saveAnalysisToDatabase(NewsAnalysisRequest request, 
                                       NewsAnalysisResponse response, 
-                                      Authentication authentication) {
+                                      Authentication authentication,
+                                      AnalysisRequestEvent requestEvent) {
         try {
             User user = (User) authentication.getPrincipal();
             
             NewsAnalysis analysis = new NewsAnalysis();
-            analysis.setUser(user);
+            // Reference only: the owning user row is neither loaded nor written here
+            analysis.setUser(userRepository.getReferenceById(user.getId()));
             analysis.setNewsTitle(request.getTitle());
-            analysis.setNewsContent(request.getContent());
+            ArticleBodyStore.StoredBody body = articleBodyStore.storeBody(request.getContent());
+            analysis.setContentHash(body.contentHash());
+            requestEvent.bodyCache = body.existing() ? "hit" : "miss";
             analysis.setDetectedLanguage(response.getDetectedLanguage());
             analysis.setIsFakeNews(response.getIsFakeNews());
             analysis.setConfidenceScore(response.getConfidenceScore());
@@ -159,18 +320,35 @@ public class NewsController {
             analysis.setModelUsed(response.getModelUsed());
             analysis.setSourceUrl(request.getSourceUrl());
             analysis.setAuthor(request.getAuthor());
-            analysis.setAnalysisFeatures(response.getAnalysisFeatures());
+            analysis.encodeFeatureScores(response.getFeatureScores());
             
             newsAnalysisRepository.save(analysis);
             
-            // Update user's analysis count
-            user.setAnalysisCount(user.getAnalysisCount() + 1);
+            // Fold the analysis into the hourly/daily language rollups
+            languageStatisticsService.recordAnalysis(analysis);
             
-            log.info("Analysis saved to database with ID: {}", analysis.getId());
+            // Update user's analysis count (buffered, flushed in batches)
+            analysisCountService.increment(user.getId());
+            
+            log.debug("Analysis saved to database with ID: {}", analysis.getId());
+            return null;
             
         } catch (Exception e) {
-            log.error("Error saving analysis to database: {}", e.getMessage(), e);
-            // Don't throw exception to avoid breaking the main flow
+            return new IllegalStateException("Failed to save analysis", e);
+        }
+    }
+    
+    private void commitRequestEvent(AnalysisRequestEvent event, NewsAnalysisRequest request,
+                                    NewsAnalysisResponse response) {
+        event.languageSource = request.getLanguage() == null || request.getLanguage().isEmpty() ? "detected" : "supplied";
+        event.titleLength = request.getTitle() != null ? request.getTitle().length() : 0;
+        event.contentLength = request.getContent() != null ? request.getContent().length() : 0;
+        if (response != null) {
+            event.language = response.getDetectedLanguage();
+            event.model = response.getModelUsed();
+            event.fakeNews = Boolean.TRUE.equals(response.getIsFakeNews());
+            event.featureCount = response.getFeatureScores() != null ? response.getFeatureScores().size() : 0;
         }
+        event.commit();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.securefileapp.controller;
+
+import com.example.securefileapp.service.SlowRequestRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/slowrequests lists the captured slow analyses, DELETE clears them. Admin only: the
+// captures hold full article text
+@Component
+@Endpoint(id = "slowrequests")
+@RequiredArgsConstructor
+public class SlowRequestEndpoint {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    @ReadOperation
+    public Map<String, Object> slowRequests() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("windowMs", slowRequestRecorder.getWindowMs());
+        body.put("windows", slowRequestRecorder.windows());
+        return body;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowRequestRecorder.clear();
+    }
+}
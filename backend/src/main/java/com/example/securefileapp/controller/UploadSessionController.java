@@ -0,0 +1,110 @@
+package com.example.securefileapp.controller;
+
+import com.example.securefileapp.model.StoredFile;
+import com.example.securefileapp.model.UploadSession;
+import com.example.securefileapp.model.User;
+import com.example.securefileapp.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Resumable upload protocol: POST creates a session, PUT ?offset= sends raw chunk bytes,
+// GET reports which chunks arrived, POST /commit assembles the file, DELETE aborts
+@RestController
+@RequestMapping("/api/files/uploads")
+public class UploadSessionController {
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createSession(@RequestBody Map<String, Object> request,
+                                                             @AuthenticationPrincipal User user) throws IOException {
+        Object totalSize = request.get("totalSize");
+        Object chunkSize = request.get("chunkSize");
+        if (!(totalSize instanceof Number)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "totalSize is required"));
+        }
+        try {
+            UploadSession session = chunkedUploadService.createSession(user,
+                    (String) request.get("filename"), (String) request.get("contentType"),
+                    ((Number) totalSize).longValue(),
+                    chunkSize instanceof Number number ? number.intValue() : null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(describe(session, List.of()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> putChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                                        @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+                                                        @AuthenticationPrincipal User user,
+                                                        HttpServletRequest request) throws IOException {
+        Optional<UploadSession> session = chunkedUploadService.findSession(uploadId, user);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            // Read the raw request body so the servlet container never buffers the chunk
+            String digest = chunkedUploadService.writeChunk(session.get(), offset,
+                    request.getContentLengthLong(), sha256, request.getInputStream());
+            return ResponseEntity.ok(Map.of("offset", offset, "sha256", digest));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getStatus(@PathVariable String uploadId,
+                                                         @AuthenticationPrincipal User user) {
+        return chunkedUploadService.findSession(uploadId, user)
+                .map(session -> ResponseEntity.ok(describe(session, chunkedUploadService.receivedChunks(session))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{uploadId}/commit")
+    public ResponseEntity<?> commit(@PathVariable String uploadId, @AuthenticationPrincipal User user) throws IOException {
+        Optional<UploadSession> session = chunkedUploadService.findSession(uploadId, user);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            StoredFile file = chunkedUploadService.commit(session.get(), user);
+            return ResponseEntity.ok(file);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId, @AuthenticationPrincipal User user) throws IOException {
+        Optional<UploadSession> session = chunkedUploadService.findSession(uploadId, user);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        chunkedUploadService.abort(session.get());
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> describe(UploadSession session, List<Integer> receivedChunks) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("uploadId", session.getId());
+        body.put("filename", session.getOriginalFilename());
+        body.put("totalSize", session.getTotalSize());
+        body.put("chunkSize", session.getChunkSize());
+        body.put("chunkCount", session.getChunkCount());
+        body.put("receivedChunks", receivedChunks);
+        return body;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.securefileapp.dto;
+
+import com.example.securefileapp.model.FeatureVectorCodec;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+// What the content view of one analysis needs: the article body reference and the encoded features
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisContentRef {
+    private String contentHash;
+    private byte[] featureVector;
+    
+    public Map<String, Double> decodeFeatureScores() {
+        return FeatureVectorCodec.decode(featureVector);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisExportFilter {
+    private Long userId; // null exports every user's analyses (admin only)
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String language;
+    private String modelUsed;
+    private Double minConfidence;
+}
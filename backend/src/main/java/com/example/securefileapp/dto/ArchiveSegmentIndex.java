@@ -0,0 +1,37 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Sidecar index of a retention segment; its presence marks the segment as complete
+@Data
+@NoArgsConstructor
+public class ArchiveSegmentIndex {
+    private String segmentFile;
+    private LocalDate day;
+    private long rowCount;
+    private long fakeCount;
+    private long minId;
+    private long maxId;
+    private LocalDateTime archivedAt;
+    // Rows within each user block run oldest first; indexes of older segments lack it (newest first)
+    private boolean ascending;
+    private Map<Long, UserBlock> users = new LinkedHashMap<>();
+    
+    // Byte range of one user's independently gzipped block inside the segment
+    @Data
+    @NoArgsConstructor
+    public static class UserBlock {
+        private long offset;
+        private long length;
+        private long rows;
+        private long fakeRows;
+        private long minId;
+        private long maxId;
+    }
+}
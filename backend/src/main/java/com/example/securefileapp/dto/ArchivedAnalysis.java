@@ -0,0 +1,35 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One news_analyses row as written to a retention segment
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedAnalysis {
+    private Long id;
+    private Long userId;
+    private String newsTitle;
+    private String detectedLanguage;
+    private Boolean isFakeNews;
+    private Double confidenceScore;
+    private Long analysisDurationMs;
+    private String modelUsed;
+    private LocalDateTime createdAt;
+    private String sourceUrl;
+    private String author;
+    private String contentHash;
+    private Integer feedbackRating;
+    private String userFeedback;
+    private LocalDateTime publicationDate;
+    private byte[] featureVector;
+    
+    public NewsAnalysisSummary toSummary() {
+        return new NewsAnalysisSummary(id, newsTitle, detectedLanguage, isFakeNews, confidenceScore,
+                modelUsed, sourceUrl, feedbackRating, createdAt);
+    }
+}
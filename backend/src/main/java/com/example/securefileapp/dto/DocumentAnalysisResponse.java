@@ -0,0 +1,25 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentAnalysisResponse {
+    private Long fileId;
+    private String filename;
+    private String detectedLanguage;
+    private String modelUsed;
+    private Boolean isFakeNews;
+    private Double confidenceScore;
+    private Double fakeProbability;
+    private Long characterCount;
+    private Integer sectionCount;
+    private Integer fakeSectionCount;
+    private Long analysisDurationMs;
+    private List<DocumentSection> sections;
+}
@@ -0,0 +1,18 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Verdict for one overlapping section of a stored document; offsets are in characters
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSection {
+    private Integer index;
+    private Long startOffset;
+    private Long endOffset;
+    private Boolean isFakeNews;
+    private Double confidenceScore;
+    private Double fakeProbability;
+}
@@ -0,0 +1,38 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+// Opaque keyset position (sort key, id) of the last row a client has seen, e.g. (created_at, id)
+// for history or (upload_time, id) for files. The key is written with toString and read back by
+// the caller's parser
+@Data
+@AllArgsConstructor
+public class KeysetCursor<T> {
+    private T key;
+    private Long id;
+
+    public String encode() {
+        String raw = key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // An absent cursor means the first page
+    public static <T> KeysetCursor<T> decode(String cursor, Function<String, T> keyParser) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor<>(keyParser.apply(raw.substring(0, separator)),
+                                      Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
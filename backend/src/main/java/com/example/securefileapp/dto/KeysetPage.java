@@ -0,0 +1,34 @@
+package com.example.securefileapp.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// One page of a keyset listing as sent to clients: content, size, hasMore and nextCursor
+public final class KeysetPage {
+
+    private KeysetPage() {
+    }
+
+    // Fetch one extra row to learn whether another page exists
+    public static Pageable limit(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    // rows holds up to pageSize + 1 rows in listing order; cursorOf gives the position of a row
+    public static <R> Map<String, Object> of(List<R> rows, int pageSize, Function<R, KeysetCursor<?>> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<R> content = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("content", content);
+        page.put("size", content.size());
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", hasMore ? cursorOf.apply(content.get(content.size() - 1)).encode() : null);
+        return page;
+    }
+}
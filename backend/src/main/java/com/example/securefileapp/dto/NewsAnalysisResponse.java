@@ -1,5 +1,8 @@
 package com.example.securefileapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -9,16 +12,25 @@ import java.util.List;
 import java.util.Map;
 
 @Data
+@Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class NewsAnalysisResponse {
+    
+    // ?view=compact: the verdict, confidence and model only, for machine clients
+    public interface Compact {
+    }
+    
     private Long id;
     private String newsTitle;
     private String newsContent;
     private String detectedLanguage;
+    @JsonView(Compact.class)
     private Boolean isFakeNews;
+    @JsonView(Compact.class)
     private Double confidenceScore;
     private Long analysisDurationMs;
+    @JsonView(Compact.class)
     private String modelUsed;
     private LocalDateTime createdAt;
     private String sourceUrl;
@@ -27,4 +39,8 @@ public class NewsAnalysisResponse {
     private List<String> analysisFeatures;
     private String explanation;
     private String recommendation;
+    // Per-stage breakdown in milliseconds, only sent when the client asks for timings
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonView(Compact.class)
+    private Map<String, Double> stageTimingsMs;
 } 
\ No newline at end of file
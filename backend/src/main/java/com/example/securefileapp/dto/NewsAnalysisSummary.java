@@ -0,0 +1,23 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Slim history row: no article body, no user, no feature collection
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsAnalysisSummary {
+    private Long id;
+    private String newsTitle;
+    private String detectedLanguage;
+    private Boolean isFakeNews;
+    private Double confidenceScore;
+    private String modelUsed;
+    private String sourceUrl;
+    private Integer feedbackRating;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.example.securefileapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+
+// Flat file listing row: no owner, no storage path, no share token
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFileSummary {
+    private Long id;
+    private String originalFilename;
+    private String contentType;
+    private Long size;
+    private Instant uploadTime;
+    private String etag;
+    private Instant shareTokenExpiry;
+}
@@ -0,0 +1,49 @@
+package com.example.securefileapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// One POST /api/news/analyze from arrival to response, including the database save. The stage
+// events of the same request are nested inside it on the same thread
+@Name("truthguard.AnalysisRequest")
+@Label("Analysis Request")
+@Category({"TruthGuard", "Analysis"})
+@Description("A news analysis request, from arrival to response")
+@StackTrace(false)
+@Threshold("20 ms")
+public class AnalysisRequestEvent extends Event {
+
+    @Label("Language")
+    public String language;
+
+    @Label("Language Source")
+    @Description("supplied by the client or detected")
+    public String languageSource;
+
+    @Label("Title Length")
+    public int titleLength;
+
+    @Label("Content Length")
+    public int contentLength;
+
+    @Label("Feature Count")
+    public int featureCount;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Fake News")
+    public boolean fakeNews;
+
+    @Label("Body Cache")
+    @Description("hit when the article body was already stored, miss when it was written")
+    public String bodyCache;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,24 @@
+package com.example.securefileapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("truthguard.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"TruthGuard", "Analysis"})
+@Description("One stage of the analysis pipeline")
+@StackTrace(false)
+@Threshold("10 ms")
+public class PipelineStageEvent extends Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Language")
+    public String language;
+}
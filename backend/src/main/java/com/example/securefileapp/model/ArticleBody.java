@@ -0,0 +1,65 @@
+package com.example.securefileapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "article_bodies")
+@Data
+@NoArgsConstructor
+public class ArticleBody implements Persistable<String> {
+    // Hex SHA-256 of the UTF-8 article text
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @Lob
+    @Column(name = "compressed_content", nullable = false)
+    private byte[] compressedContent;
+    
+    @Column(name = "original_length", nullable = false)
+    private Integer originalLength;
+    
+    @Column(name = "codec", nullable = false, length = 16)
+    private String codec;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    // The id is assigned, so Spring Data cannot tell a new body from a stored one by it. A new instance
+    // is persisted (a plain INSERT) rather than merged, which would SELECT first and could overwrite
+    // a row stored concurrently
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean isNew = true;
+    
+    public ArticleBody(String contentHash, byte[] compressedContent, Integer originalLength, String codec,
+                       LocalDateTime createdAt) {
+        this.contentHash = contentHash;
+        this.compressedContent = compressedContent;
+        this.originalLength = originalLength;
+        this.codec = codec;
+        this.createdAt = createdAt;
+    }
+    
+    @Override
+    public String getId() {
+        return contentHash;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    @PostPersist
+    @PostLoad
+    protected void markStored() {
+        isNew = false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.securefileapp.model;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary layout of NewsAnalysis.featureVector:
+//   byte    schema version
+//   int     presence bitmask over that version's feature dictionary
+//   float*  one value per present dictionary feature, in dictionary order
+//   short   number of extra (non-dictionary) features, each as UTF name + float
+// A dictionary is frozen once released; new feature names go into a new version.
+public final class FeatureVectorCodec {
+
+    public static final byte CURRENT_VERSION = 1;
+
+    private static final List<String> DICTIONARY_V1 = List.of(
+        "title_length", "content_length", "title_word_count", "content_word_count",
+        "title_sentiment", "content_sentiment", "title_readability", "content_readability",
+        "exclamation_count", "question_count", "capital_ratio", "number_count",
+        "has_url", "has_author", "sensational_words", "clickbait_phrases",
+        "generic_sensational_score", "generic_clickbait_score"
+    );
+
+    // Every released dictionary stays here so rows written under it still decode
+    private static final Map<Byte, List<String>> DICTIONARIES = Map.of(
+        (byte) 1, DICTIONARY_V1
+    );
+
+    private FeatureVectorCodec() {
+    }
+
+    public static byte[] encode(Map<String, Double> features) {
+        if (features == null || features.isEmpty()) {
+            return null;
+        }
+
+        try {
+            List<String> dictionary = DICTIONARIES.get(CURRENT_VERSION);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + features.size() * 4);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            int presence = 0;
+            for (int i = 0; i < dictionary.size(); i++) {
+                if (features.get(dictionary.get(i)) != null) {
+                    presence |= 1 << i;
+                }
+            }
+
+            out.writeByte(CURRENT_VERSION);
+            out.writeInt(presence);
+            for (int i = 0; i < dictionary.size(); i++) {
+                if ((presence & (1 << i)) != 0) {
+                    out.writeFloat(features.get(dictionary.get(i)).floatValue());
+                }
+            }
+
+            Map<String, Double> extras = new LinkedHashMap<>();
+            for (Map.Entry<String, Double> feature : features.entrySet()) {
+                if (feature.getValue() != null && !dictionary.contains(feature.getKey())) {
+                    extras.put(feature.getKey(), feature.getValue());
+                }
+            }
+            out.writeShort(extras.size());
+            for (Map.Entry<String, Double> extra : extras.entrySet()) {
+                out.writeUTF(extra.getKey());
+                out.writeFloat(extra.getValue().floatValue());
+            }
+
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode feature vector", e);
+        }
+    }
+
+    public static Map<String, Double> decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            List<String> dictionary = DICTIONARIES.get(version);
+            if (dictionary == null) {
+                throw new IllegalStateException("Unsupported feature vector version: " + version);
+            }
+
+            Map<String, Double> features = new LinkedHashMap<>();
+            int presence = in.readInt();
+            for (int i = 0; i < dictionary.size(); i++) {
+                if ((presence & (1 << i)) != 0) {
+                    features.put(dictionary.get(i), (double) in.readFloat());
+                }
+            }
+
+            int extraCount = in.readUnsignedShort();
+            for (int i = 0; i < extraCount; i++) {
+                String name = in.readUTF();
+                features.put(name, (double) in.readFloat());
+            }
+            return features;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode feature vector", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.securefileapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+
+// One stored copy of a file's bytes, shared by every StoredFile with the same content
+@Entity
+@Table(name = "file_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileBlob {
+    // Hex SHA-256 of the file bytes
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    // Relative to the storage root; null for blobs written flat before the directory fan-out
+    @Column(name = "storage_path", length = 128)
+    private String storagePath;
+
+    // "gzip" when the bytes on disk are compressed; null for identity
+    @Column(name = "encoding", length = 16)
+    private String encoding;
+
+    // Bytes on disk, which is less than size for compressed blobs
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
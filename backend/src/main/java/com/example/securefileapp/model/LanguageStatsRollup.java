@@ -0,0 +1,54 @@
+package com.example.securefileapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "language_stats_rollups",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_language_stats_rollup_bucket",
+           columnNames = {"granularity", "bucket_start", "language", "model_used"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LanguageStatsRollup {
+
+    public enum Granularity {
+        HOURLY,
+        DAILY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 16)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "language", nullable = false)
+    private String language;
+
+    @Column(name = "model_used", nullable = false)
+    private String modelUsed;
+
+    @Column(name = "analysis_count", nullable = false)
+    private Long analysisCount = 0L;
+
+    @Column(name = "fake_count", nullable = false)
+    private Long fakeCount = 0L;
+
+    @Column(name = "confidence_sum", nullable = false)
+    private Double confidenceSum = 0.0;
+
+    // Sum of squared confidence scores, kept so variance can be derived without a rescan
+    @Column(name = "confidence_sum_squares", nullable = false)
+    private Double confidenceSumSquares = 0.0;
+}
@@ -6,10 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "news_analyses")
+@Table(name = "news_analyses",
+       indexes = {
+           @Index(name = "idx_news_analyses_user_created", columnList = "user_id, created_at, id"),
+           @Index(name = "idx_news_analyses_content_hash", columnList = "content_hash")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,15 +22,16 @@ public class NewsAnalysis {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
     @Column(name = "news_title", nullable = false)
     private String newsTitle;
     
-    @Column(name = "news_content", columnDefinition = "TEXT", nullable = false)
-    private String newsContent;
+    // Reference into article_bodies; the body itself is stored once, compressed
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
     
     @Column(name = "detected_language")
     private String detectedLanguage;
@@ -52,10 +57,11 @@ public class NewsAnalysis {
     @Column(name = "feedback_rating")
     private Integer feedbackRating; // 1-5 scale
     
-    @ElementCollection
-    @CollectionTable(name = "analysis_features", joinColumns = @JoinColumn(name = "analysis_id"))
-    @Column(name = "feature_value")
-    private List<String> analysisFeatures;
+    // Full feature vector (names and values), see FeatureVectorCodec
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "feature_vector")
+    private byte[] featureVector;
     
     @Column(name = "source_url")
     private String sourceUrl;
@@ -66,6 +72,10 @@ public class NewsAnalysis {
     @Column(name = "publication_date")
     private LocalDateTime publicationDate;
     
+    public void encodeFeatureScores(Map<String, Double> featureScores) {
+        this.featureVector = FeatureVectorCodec.encode(featureScores);
+    }
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -1,23 +1,34 @@
 package com.example.securefileapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = @Index(name = "idx_stored_file_owner_upload", columnList = "owner_id, upload_time, id"))
 @Data
 public class StoredFile {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Path relative to file.storage.location
     private String filename;
     private String originalFilename;
     private String contentType;
     private Long size;
     private Instant uploadTime;
+    // Strong validator: quoted hex SHA-256 of the bytes, computed once at upload
+    private String etag;
+    // Content-addressed blob holding the bytes; null for files still under their legacy UUID name
+    @Column(length = 64)
+    private String blobHash;
+    // Encoding of the bytes on disk ("gzip" for text-like uploads compressed on ingest); size stays the original
+    private String contentEncoding;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     private User owner;
 
     private String shareToken;
@@ -0,0 +1,23 @@
+package com.example.securefileapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// One received chunk of an upload session; a re-sent chunk replaces it once its bytes verify
+@Entity
+@Table(name = "upload_chunks",
+       uniqueConstraints = @UniqueConstraint(name = "uk_upload_chunk", columnNames = {"upload_id", "chunk_index"}))
+@Data
+public class UploadChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "upload_id", nullable = false, length = 36)
+    private String uploadId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    private String sha256;
+}
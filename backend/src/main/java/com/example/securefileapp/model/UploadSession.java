@@ -0,0 +1,25 @@
+package com.example.securefileapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.Instant;
+
+@Entity
+@Table(name = "upload_sessions")
+@Data
+public class UploadSession {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private User owner;
+
+    private String originalFilename;
+    private String contentType;
+    private Long totalSize;
+    private Integer chunkSize;
+    private Integer chunkCount;
+    private Instant createdAt;
+    private Instant lastActivity;
+}
@@ -0,0 +1,34 @@
+package com.example.securefileapp.model;
+
+import com.example.securefileapp.service.UserCacheService;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Keeps cached principals in step with entity changes (Hibernate resolves this listener as a Spring bean)
+@Component
+public class UserChangeListener {
+
+    @Autowired
+    @Lazy
+    private UserCacheService userCacheService;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        userCacheService.invalidate(user);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Also after commit, so a concurrent reader cannot re-cache the pre-commit row
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCacheService.invalidate(user);
+                }
+            });
+        }
+    }
+}
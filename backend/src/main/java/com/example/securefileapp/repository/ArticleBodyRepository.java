@@ -0,0 +1,9 @@
+package com.example.securefileapp.repository;
+
+import com.example.securefileapp.model.ArticleBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArticleBodyRepository extends JpaRepository<ArticleBody, String> {
+}
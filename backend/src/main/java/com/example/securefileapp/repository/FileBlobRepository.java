@@ -0,0 +1,43 @@
+package com.example.securefileapp.repository;
+
+import com.example.securefileapp.model.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    // [blob count, original bytes, bytes on disk, compressed blob count]
+    @Query("SELECT COUNT(b), COALESCE(SUM(b.size), 0), COALESCE(SUM(COALESCE(b.storedSize, b.size)), 0), " +
+           "COALESCE(SUM(CASE WHEN b.encoding IS NOT NULL THEN 1 ELSE 0 END), 0) FROM FileBlob b")
+    List<Object[]> summarize();
+
+    // Blobs still in the flat pre-sharding layout, in hash order so relocation can resume
+    List<FileBlob> findTop100ByStoragePathIsNullAndHashGreaterThanOrderByHashAsc(String afterHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.storagePath = :path WHERE b.hash = :hash")
+    int setStoragePath(@Param("hash") String hash, @Param("path") String path);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
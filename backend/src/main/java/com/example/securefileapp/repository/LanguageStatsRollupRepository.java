@@ -0,0 +1,45 @@
+package com.example.securefileapp.repository;
+
+import com.example.securefileapp.model.LanguageStatsRollup;
+import com.example.securefileapp.model.LanguageStatsRollup.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LanguageStatsRollupRepository extends JpaRepository<LanguageStatsRollup, Long> {
+
+    // Increment an existing bucket in place; returns 0 when the bucket row does not exist yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE LanguageStatsRollup r SET " +
+           "r.analysisCount = r.analysisCount + 1, " +
+           "r.fakeCount = r.fakeCount + :fakeIncrement, " +
+           "r.confidenceSum = r.confidenceSum + :confidence, " +
+           "r.confidenceSumSquares = r.confidenceSumSquares + :confidenceSquared " +
+           "WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart " +
+           "AND r.language = :language AND r.modelUsed = :modelUsed")
+    int incrementBucket(@Param("granularity") Granularity granularity,
+                        @Param("bucketStart") LocalDateTime bucketStart,
+                        @Param("language") String language,
+                        @Param("modelUsed") String modelUsed,
+                        @Param("fakeIncrement") long fakeIncrement,
+                        @Param("confidence") double confidence,
+                        @Param("confidenceSquared") double confidenceSquared);
+
+    // Sum buckets of one granularity per language over [from, to)
+    @Query("SELECT r.language, SUM(r.analysisCount), SUM(r.fakeCount), " +
+           "SUM(r.confidenceSum), SUM(r.confidenceSumSquares) " +
+           "FROM LanguageStatsRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.language")
+    List<Object[]> sumByLanguage(@Param("granularity") Granularity granularity,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+}
@@ -1,5 +1,7 @@
 package com.example.securefileapp.repository;
 
+import com.example.securefileapp.dto.AnalysisContentRef;
+import com.example.securefileapp.dto.NewsAnalysisSummary;
 import com.example.securefileapp.model.NewsAnalysis;
 import com.example.securefileapp.model.User;
 import org.springframework.data.domain.Page;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NewsAnalysisRepository extends JpaRepository<NewsAnalysis, Long> {
@@ -18,6 +21,31 @@ public interface NewsAnalysisRepository extends JpaRepository<NewsAnalysis, Long
     // Find all analyses by user
     Page<NewsAnalysis> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
     
+    // Keyset history: first page of slim rows for a user, newest first
+    @Query("SELECT new com.example.securefileapp.dto.NewsAnalysisSummary(" +
+           "na.id, na.newsTitle, na.detectedLanguage, na.isFakeNews, na.confidenceScore, " +
+           "na.modelUsed, na.sourceUrl, na.feedbackRating, na.createdAt) " +
+           "FROM NewsAnalysis na WHERE na.user.id = :userId " +
+           "ORDER BY na.createdAt DESC, na.id DESC")
+    List<NewsAnalysisSummary> findHistoryFirstPage(@Param("userId") Long userId, Pageable pageable);
+    
+    // Keyset history: rows strictly after the (createdAt, id) cursor
+    @Query("SELECT new com.example.securefileapp.dto.NewsAnalysisSummary(" +
+           "na.id, na.newsTitle, na.detectedLanguage, na.isFakeNews, na.confidenceScore, " +
+           "na.modelUsed, na.sourceUrl, na.feedbackRating, na.createdAt) " +
+           "FROM NewsAnalysis na WHERE na.user.id = :userId " +
+           "AND (na.createdAt < :cursorCreatedAt OR (na.createdAt = :cursorCreatedAt AND na.id < :cursorId)) " +
+           "ORDER BY na.createdAt DESC, na.id DESC")
+    List<NewsAnalysisSummary> findHistoryAfter(@Param("userId") Long userId,
+                                               @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                               @Param("cursorId") Long cursorId,
+                                               Pageable pageable);
+    
+    // Resolve the article body reference and feature vector of a single analysis on demand
+    @Query("SELECT new com.example.securefileapp.dto.AnalysisContentRef(na.contentHash, na.featureVector) " +
+           "FROM NewsAnalysis na WHERE na.id = :id AND na.user.id = :userId")
+    Optional<AnalysisContentRef> findContentRefByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
     // Find analyses by user and fake news status
     List<NewsAnalysis> findByUserAndIsFakeNewsOrderByCreatedAtDesc(User user, Boolean isFakeNews);
     
@@ -49,15 +77,4 @@ public interface NewsAnalysisRepository extends JpaRepository<NewsAnalysis, Long
     
     // Find analyses by model used
     List<NewsAnalysis> findByModelUsedOrderByCreatedAtDesc(String modelUsed);
-    
-    // Get statistics by language
-    @Query("SELECT na.detectedLanguage, COUNT(na), AVG(na.confidenceScore) " +
-           "FROM NewsAnalysis na GROUP BY na.detectedLanguage")
-    List<Object[]> getStatisticsByLanguage();
-    
-    // Get fake news percentage by language
-    @Query("SELECT na.detectedLanguage, " +
-           "COUNT(CASE WHEN na.isFakeNews = true THEN 1 END) * 100.0 / COUNT(na) " +
-           "FROM NewsAnalysis na GROUP BY na.detectedLanguage")
-    List<Object[]> getFakeNewsPercentageByLanguage();
 } 
\ No newline at end of file
@@ -1,12 +1,75 @@
 package com.example.securefileapp.repository;
 
+import com.example.securefileapp.dto.StoredFileSummary;
 import com.example.securefileapp.model.StoredFile;
-import com.example.securefileapp.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
-    List<StoredFile> findByOwner(User owner);
-    Optional<StoredFile> findByShareToken(String shareToken);
-} 
\ No newline at end of file
+    // Keyset listing, newest first; null filters match everything. Patterns use '!' as the LIKE escape
+    @Query("SELECT new com.example.securefileapp.dto.StoredFileSummary(" +
+           "f.id, f.originalFilename, f.contentType, f.size, f.uploadTime, f.etag, f.shareTokenExpiry) " +
+           "FROM StoredFile f WHERE f.owner.id = :ownerId " +
+           "AND (:contentTypePattern IS NULL OR f.contentType LIKE :contentTypePattern ESCAPE '!') " +
+           "AND (:namePattern IS NULL OR f.originalFilename LIKE :namePattern ESCAPE '!') " +
+           "ORDER BY f.uploadTime DESC, f.id DESC")
+    List<StoredFileSummary> findListingFirstPage(@Param("ownerId") Long ownerId,
+                                                 @Param("contentTypePattern") String contentTypePattern,
+                                                 @Param("namePattern") String namePattern,
+                                                 Pageable pageable);
+
+    @Query("SELECT new com.example.securefileapp.dto.StoredFileSummary(" +
+           "f.id, f.originalFilename, f.contentType, f.size, f.uploadTime, f.etag, f.shareTokenExpiry) " +
+           "FROM StoredFile f WHERE f.owner.id = :ownerId " +
+           "AND (f.uploadTime < :cursorUploadTime OR (f.uploadTime = :cursorUploadTime AND f.id < :cursorId)) " +
+           "AND (:contentTypePattern IS NULL OR f.contentType LIKE :contentTypePattern ESCAPE '!') " +
+           "AND (:namePattern IS NULL OR f.originalFilename LIKE :namePattern ESCAPE '!') " +
+           "ORDER BY f.uploadTime DESC, f.id DESC")
+    List<StoredFileSummary> findListingAfter(@Param("ownerId") Long ownerId,
+                                             @Param("cursorUploadTime") Instant cursorUploadTime,
+                                             @Param("cursorId") Long cursorId,
+                                             @Param("contentTypePattern") String contentTypePattern,
+                                             @Param("namePattern") String namePattern,
+                                             Pageable pageable);
+
+    List<StoredFile> findByShareTokenIsNotNull();
+    List<StoredFile> findByBlobHashAndShareTokenIsNotNull(String blobHash);
+
+    // Files still stored under their legacy UUID name, in id order so migration can resume
+    List<StoredFile> findTop100ByBlobHashIsNullAndIdGreaterThanOrderByIdAsc(Long afterId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.blobHash = :hash, f.filename = :filename, " +
+           "f.contentEncoding = :encoding, f.etag = :etag WHERE f.id = :id AND f.blobHash IS NULL")
+    int attachBlob(@Param("id") Long id, @Param("hash") String hash, @Param("filename") String filename,
+                   @Param("encoding") String encoding, @Param("etag") String etag);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.filename = :filename WHERE f.blobHash = :hash")
+    int repointBlob(@Param("hash") String hash, @Param("filename") String filename);
+
+    // [file count, logical bytes] across all owners
+    @Query("SELECT COUNT(f), COALESCE(SUM(f.size), 0) FROM StoredFile f")
+    List<Object[]> summarize();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.etag = :etag WHERE f.id = :id")
+    int updateEtag(@Param("id") Long id, @Param("etag") String etag);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.shareToken = NULL, f.shareTokenExpiry = NULL " +
+           "WHERE f.id IN :ids AND f.shareTokenExpiry <= :now")
+    int clearExpiredShareTokens(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+}
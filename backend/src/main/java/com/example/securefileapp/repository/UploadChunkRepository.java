@@ -0,0 +1,29 @@
+package com.example.securefileapp.repository;
+
+import com.example.securefileapp.model.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+    // Records the checksum of a replaced chunk; returns 0 when the chunk was not received before
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadChunk c SET c.sha256 = :sha256 WHERE c.uploadId = :uploadId AND c.chunkIndex = :chunkIndex")
+    int updateSha256(@Param("uploadId") String uploadId, @Param("chunkIndex") Integer chunkIndex,
+                     @Param("sha256") String sha256);
+
+    long countByUploadId(String uploadId);
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.uploadId = :uploadId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("uploadId") String uploadId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadChunk c WHERE c.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
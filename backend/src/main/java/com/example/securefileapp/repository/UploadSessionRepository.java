@@ -0,0 +1,23 @@
+package com.example.securefileapp.repository;
+
+import com.example.securefileapp.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    Optional<UploadSession> findByIdAndOwnerId(String id, Long ownerId);
+
+    List<UploadSession> findByLastActivityBefore(Instant cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.lastActivity = :now WHERE s.id = :id")
+    int touch(@Param("id") String id, @Param("now") Instant now);
+}
@@ -2,8 +2,19 @@ package com.example.securefileapp.repository;
 
 import com.example.securefileapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
-} 
\ No newline at end of file
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.analysisCount = COALESCE(u.analysisCount, 0) + :delta WHERE u.id IN :ids")
+    int addAnalysisCount(@Param("delta") int delta, @Param("ids") Collection<Long> ids);
+}
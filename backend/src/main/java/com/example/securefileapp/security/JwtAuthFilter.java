@@ -1 +1,90 @@
- 
\ No newline at end of file
+package com.example.securefileapp.security;
+
+import com.example.securefileapp.model.User;
+import com.example.securefileapp.service.UserCacheService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtAuthFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    // Tokens without an exp claim are re-verified at least this often
+    private static final long UNBOUNDED_TOKEN_CACHE_MS = 5 * 60 * 1000;
+
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final UserCacheService userCacheService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER_PREFIX)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = header.substring(BEARER_PREFIX.length());
+            String digest = tokenCache.digest(token);
+
+            VerifiedTokenCache.Entry entry = tokenCache.isRevoked(digest) ? null : resolve(token, digest);
+            if (entry != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(entry.getPrincipal(), null, entry.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private VerifiedTokenCache.Entry resolve(String token, String digest) {
+        VerifiedTokenCache.Entry cached = tokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            User user = userCacheService.findByUsername(claims.getSubject()).orElse(null);
+            if (user == null) {
+                return null;
+            }
+
+            long expiresAt = claims.getExpiration() != null
+                    ? claims.getExpiration().getTime()
+                    : System.currentTimeMillis() + UNBOUNDED_TOKEN_CACHE_MS;
+            VerifiedTokenCache.Entry entry = new VerifiedTokenCache.Entry(user, authoritiesFor(user), expiresAt);
+            tokenCache.put(digest, entry);
+            return entry;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static List<GrantedAuthority> authoritiesFor(User user) {
+        return Boolean.TRUE.equals(user.getIsAdmin())
+                ? List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))
+                : List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    }
+}
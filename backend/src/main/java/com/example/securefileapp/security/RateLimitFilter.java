@@ -0,0 +1,188 @@
+package com.example.securefileapp.security;
+
+import com.example.securefileapp.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token-bucket limits per user and per client IP in front of the news and file APIs
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum EndpointClass {
+        ANALYZE,
+        NEWS,
+        FILES
+    }
+
+    // Token bucket kept as a single "theoretical arrival time" (GCRA), so admitting a request is one CAS
+    static final class Bucket {
+        private final AtomicLong theoreticalArrivalNanos;
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+
+        Bucket(double ratePerSecond, int burst, long nowNanos) {
+            this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+            this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+        }
+
+        // Returns 0 when admitted, otherwise nanoseconds until a token is available
+        long tryAcquire(long nowNanos) {
+            while (true) {
+                long tat = theoreticalArrivalNanos.get();
+                long start = Math.max(tat, nowNanos);
+                long wait = start - burstToleranceNanos - nowNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(tat, start + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdle(long nowNanos) {
+            return theoreticalArrivalNanos.get() <= nowNanos;
+        }
+    }
+
+    static final class Limit {
+        final double ratePerSecond;
+        final int burst;
+
+        Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final MeterRegistry meterRegistry;
+
+    @Value("${truthguard.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${truthguard.rate-limit.analyze.rate-per-second:2}")
+    private double analyzeRate;
+
+    @Value("${truthguard.rate-limit.analyze.burst:10}")
+    private int analyzeBurst;
+
+    @Value("${truthguard.rate-limit.news.rate-per-second:10}")
+    private double newsRate;
+
+    @Value("${truthguard.rate-limit.news.burst:40}")
+    private int newsBurst;
+
+    @Value("${truthguard.rate-limit.files.rate-per-second:5}")
+    private double filesRate;
+
+    @Value("${truthguard.rate-limit.files.burst:20}")
+    private int filesBurst;
+
+    // One IP may front several users (NAT, offices), so its allowance is a multiple of the per-user one
+    @Value("${truthguard.rate-limit.ip-multiplier:4}")
+    private int ipMultiplier;
+
+    public RateLimitFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        limits.put(EndpointClass.ANALYZE, new Limit(analyzeRate, analyzeBurst));
+        limits.put(EndpointClass.NEWS, new Limit(newsRate, newsBurst));
+        limits.put(EndpointClass.FILES, new Limit(filesRate, filesBurst));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        Limit limit = limits.get(endpointClass);
+        long now = System.nanoTime();
+
+        long wait = acquire("ip:" + request.getRemoteAddr() + ":" + endpointClass,
+                limit.ratePerSecond * ipMultiplier, limit.burst * ipMultiplier, now);
+        String keyType = "ip";
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (wait == 0 && authentication != null && authentication.getPrincipal() instanceof User user) {
+            wait = acquire("user:" + user.getId() + ":" + endpointClass, limit.ratePerSecond, limit.burst, now);
+            keyType = "user";
+        }
+
+        if (wait > 0) {
+            Counter.builder("truthguard.ratelimit.throttled")
+                    .tag("endpoint", endpointClass.name().toLowerCase())
+                    .tag("key", keyType)
+                    .register(meterRegistry)
+                    .increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests\",\"retryAfterSeconds\":" + retryAfterSeconds + "}");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private long acquire(String key, double ratePerSecond, int burst, long now) {
+        return buckets.computeIfAbsent(key, k -> new Bucket(ratePerSecond, burst, now)).tryAcquire(now);
+    }
+
+    private EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/news/analyze") && "POST".equalsIgnoreCase(request.getMethod())) {
+            return EndpointClass.ANALYZE;
+        }
+        if (path.startsWith("/api/news/")) {
+            return EndpointClass.NEWS;
+        }
+        if (path.startsWith("/api/files")) {
+            return EndpointClass.FILES;
+        }
+        return null;
+    }
+
+    // Buckets that have fully refilled carry no state worth keeping
+    @Scheduled(fixedDelayString = "${truthguard.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.forEach((key, bucket) -> {
+            if (bucket.isIdle(now)) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+}
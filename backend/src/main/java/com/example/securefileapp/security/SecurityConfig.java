@@ -20,6 +20,8 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
     @Autowired
+    private RateLimitFilter rateLimitFilter;
+    @Autowired
     private UserDetailsService userDetailsService;
 
     @Bean
@@ -43,8 +45,11 @@ public class SecurityConfig {
             .and()
             .authorizeHttpRequests()
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/actuator/slowrequests/**").hasRole("ADMIN")
                 .anyRequest().authenticated();
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+        // After authentication so buckets can be keyed by user as well as by IP
+        http.addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
         return http.build();
     }
 } 
\ No newline at end of file
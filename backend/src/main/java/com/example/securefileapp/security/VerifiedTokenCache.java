@@ -0,0 +1,165 @@
+package com.example.securefileapp.security;
+
+import com.example.securefileapp.model.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Verified JWTs keyed by SHA-256 digest, so repeat requests skip signature checks and user lookups
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    public static class Entry {
+        private final User principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+        private final long expiresAtMillis;
+
+        public Entry(User principal, Collection<? extends GrantedAuthority> authorities, long expiresAtMillis) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public User getPrincipal() { return principal; }
+        public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> digestsByUsername = new ConcurrentHashMap<>();
+    // Logged-out tokens, remembered until they would have expired anyway
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${truthguard.jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("truthguard.jwt.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("truthguard.jwt.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("truthguard.jwt.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("truthguard.jwt.cache.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("truthguard.jwt.cache.hit.ratio", this, VerifiedTokenCache::hitRatio).register(meterRegistry);
+    }
+
+    public String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public boolean isRevoked(String digest) {
+        return revoked.containsKey(digest);
+    }
+
+    public Entry get(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.getExpiresAtMillis() <= System.currentTimeMillis()) {
+            remove(digest, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    public void put(String digest, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                evictSome(Math.max(1, maxEntries / 10));
+            }
+        }
+        entries.put(digest, entry);
+        digestsByUsername.computeIfAbsent(entry.getPrincipal().getUsername(), u -> ConcurrentHashMap.newKeySet())
+                .add(digest);
+    }
+
+    public void revoke(String token, long expiresAtMillis) {
+        String digest = digest(token);
+        revoked.put(digest, expiresAtMillis);
+        Entry entry = entries.get(digest);
+        if (entry != null) {
+            remove(digest, entry);
+        }
+    }
+
+    // Drop every cached session of a user, e.g. after a password, role or profile change
+    public void evictUser(String username) {
+        Set<String> digests = digestsByUsername.remove(username);
+        if (digests != null) {
+            for (String digest : digests) {
+                if (entries.remove(digest) != null) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        digestsByUsername.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${truthguard.jwt.cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((digest, entry) -> {
+            if (entry.getExpiresAtMillis() <= now) {
+                remove(digest, entry);
+            }
+        });
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private void evictSome(int count) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (count-- > 0 && iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            remove(next.getKey(), next.getValue());
+        }
+    }
+
+    private void remove(String digest, Entry entry) {
+        if (entries.remove(digest, entry)) {
+            evictions.increment();
+            Set<String> digests = digestsByUsername.get(entry.getPrincipal().getUsername());
+            if (digests != null) {
+                digests.remove(digest);
+            }
+        }
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
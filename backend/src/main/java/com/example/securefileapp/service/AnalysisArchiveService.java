@@ -0,0 +1,535 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.AnalysisContentRef;
+import com.example.securefileapp.dto.AnalysisExportFilter;
+import com.example.securefileapp.dto.ArchiveSegmentIndex;
+import com.example.securefileapp.dto.ArchiveSegmentIndex.UserBlock;
+import com.example.securefileapp.dto.ArchivedAnalysis;
+import com.example.securefileapp.dto.NewsAnalysisSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@Slf4j
+public class AnalysisArchiveService {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    // Small buffers: an export keeps one decoder open per user block of a day
+    private static final int MERGE_BUFFER_SIZE = 8 * 1024;
+
+    private static final Comparator<ArchivedAnalysis> OLDEST_FIRST =
+            Comparator.comparing(ArchivedAnalysis::getCreatedAt).thenComparing(ArchivedAnalysis::getId);
+
+    private static final String SELECT_DAY =
+        "SELECT id, user_id, news_title, detected_language, is_fake_news, confidence_score, " +
+        "analysis_duration_ms, model_used, created_at, source_url, author, content_hash, " +
+        "feedback_rating, user_feedback, publication_date, feature_vector " +
+        "FROM news_analyses WHERE created_at >= ? AND created_at < ? " +
+        "ORDER BY user_id, created_at, id";
+
+    private static final String DELETE_ARCHIVED =
+        "DELETE FROM news_analyses WHERE created_at >= ? AND created_at < ? AND id <= ?";
+
+    private static final String OLDEST_BEFORE =
+        "SELECT MIN(created_at) FROM news_analyses WHERE created_at < ?";
+
+    @FunctionalInterface
+    public interface ArchivedRowHandler {
+        void handle(ArchivedAnalysis analysis) throws IOException;
+    }
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    @Value("${truthguard.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${truthguard.retention.hot-age-days:90}")
+    private int hotAgeDays;
+
+    @Value("${truthguard.retention.archive-location:archive}")
+    private String archiveLocation;
+
+    @Value("${truthguard.export.fetch-size:500}")
+    private int fetchSize;
+
+    // Committed segments by the day they cover
+    private final ConcurrentSkipListMap<LocalDate, List<ArchiveSegmentIndex>> segments = new ConcurrentSkipListMap<>();
+
+    public AnalysisArchiveService(DataSource dataSource, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void loadManifest() throws IOException {
+        Path root = Paths.get(archiveLocation);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path indexFile : files.filter(p -> p.toString().endsWith(INDEX_SUFFIX)).toList()) {
+                ArchiveSegmentIndex index = objectMapper.readValue(indexFile.toFile(), ArchiveSegmentIndex.class);
+                segments.computeIfAbsent(index.getDay(), d -> new CopyOnWriteArrayList<>()).add(index);
+            }
+        }
+        log.info("Loaded {} archived analysis days from {}", segments.size(), root.toAbsolutePath());
+    }
+
+    @Scheduled(cron = "${truthguard.retention.cron:0 30 3 * * *}")
+    public void runRetention() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDate.now().minusDays(hotAgeDays).atStartOfDay();
+        try {
+            LocalDateTime oldest;
+            while ((oldest = findOldestHotRowBefore(cutoff)) != null) {
+                if (archiveDay(oldest.toLocalDate()) == 0) {
+                    log.warn("Retention made no progress on {}, stopping this run", oldest.toLocalDate());
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Retention run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private LocalDateTime findOldestHotRowBefore(LocalDateTime cutoff) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(OLDEST_BEFORE)) {
+            statement.setTimestamp(1, Timestamp.valueOf(cutoff));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Timestamp oldest = resultSet.next() ? resultSet.getTimestamp(1) : null;
+                return oldest != null ? oldest.toLocalDateTime() : null;
+            }
+        }
+    }
+
+    private int archiveDay(LocalDate day) throws IOException, SQLException {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+
+        // A crash between committing a segment and deleting its rows leaves them hot; finish that first
+        int deleted = 0;
+        for (ArchiveSegmentIndex existing : segments.getOrDefault(day, List.of())) {
+            deleted += deleteArchived(start, end, existing.getMaxId());
+        }
+
+        Path dir = Paths.get(archiveLocation, String.valueOf(day.getYear()), String.format("%02d", day.getMonthValue()));
+        Files.createDirectories(dir);
+        String name = "analyses-" + day + "-" + System.currentTimeMillis();
+        Path segmentTmp = dir.resolve(name + SEGMENT_SUFFIX + ".tmp");
+        Path segmentFile = dir.resolve(name + SEGMENT_SUFFIX);
+
+        ArchiveSegmentIndex index = new ArchiveSegmentIndex();
+        index.setDay(day);
+        index.setSegmentFile(Paths.get(archiveLocation).relativize(segmentFile).toString());
+        index.setMinId(Long.MAX_VALUE);
+        index.setAscending(true);
+
+        try (FileChannel channel = FileChannel.open(segmentTmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeSegment(start, end, channel, index);
+            channel.force(true);
+        }
+
+        if (index.getRowCount() == 0) {
+            Files.deleteIfExists(segmentTmp);
+            return deleted;
+        }
+
+        Files.move(segmentTmp, segmentFile, StandardCopyOption.ATOMIC_MOVE);
+        index.setArchivedAt(LocalDateTime.now());
+        Path indexTmp = dir.resolve(name + INDEX_SUFFIX + ".tmp");
+        objectMapper.writeValue(indexTmp.toFile(), index);
+        Files.move(indexTmp, dir.resolve(name + INDEX_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        segments.computeIfAbsent(day, d -> new CopyOnWriteArrayList<>()).add(index);
+
+        deleted += deleteArchived(start, end, index.getMaxId());
+        log.info("Archived {} analyses for {} into {} ({} hot rows removed)",
+                index.getRowCount(), day, segmentFile, deleted);
+        return deleted;
+    }
+
+    private void writeSegment(LocalDateTime start, LocalDateTime end, FileChannel channel,
+                              ArchiveSegmentIndex index) throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    SELECT_DAY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(start));
+                statement.setTimestamp(2, Timestamp.valueOf(end));
+
+                CountingOutputStream out = new CountingOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                GZIPOutputStream block = null;
+                UserBlock userBlock = null;
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ArchivedAnalysis analysis = readRow(resultSet);
+                        if (userBlock == null || !index.getUsers().containsKey(analysis.getUserId())) {
+                            // Each user gets an independent gzip member so readers can seek straight to it
+                            finishBlock(block, userBlock, out);
+                            userBlock = new UserBlock();
+                            userBlock.setOffset(out.getByteCount());
+                            userBlock.setMinId(Long.MAX_VALUE);
+                            index.getUsers().put(analysis.getUserId(), userBlock);
+                            block = new GZIPOutputStream(CloseShieldOutputStream.wrap(out), 16 * 1024);
+                        }
+
+                        block.write(objectMapper.writeValueAsBytes(analysis));
+                        block.write('\n');
+
+                        long fake = Boolean.TRUE.equals(analysis.getIsFakeNews()) ? 1 : 0;
+                        userBlock.setRows(userBlock.getRows() + 1);
+                        userBlock.setFakeRows(userBlock.getFakeRows() + fake);
+                        userBlock.setMinId(Math.min(userBlock.getMinId(), analysis.getId()));
+                        userBlock.setMaxId(Math.max(userBlock.getMaxId(), analysis.getId()));
+                        index.setRowCount(index.getRowCount() + 1);
+                        index.setFakeCount(index.getFakeCount() + fake);
+                        index.setMinId(Math.min(index.getMinId(), analysis.getId()));
+                        index.setMaxId(Math.max(index.getMaxId(), analysis.getId()));
+                    }
+                }
+                finishBlock(block, userBlock, out);
+                out.flush();
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void finishBlock(GZIPOutputStream block, UserBlock userBlock, CountingOutputStream out) throws IOException {
+        if (block == null) {
+            return;
+        }
+        block.finish();
+        userBlock.setLength(out.getByteCount() - userBlock.getOffset());
+    }
+
+    private ArchivedAnalysis readRow(ResultSet resultSet) throws SQLException {
+        Timestamp createdAt = resultSet.getTimestamp("created_at");
+        Timestamp publicationDate = resultSet.getTimestamp("publication_date");
+        return new ArchivedAnalysis(
+            resultSet.getLong("id"),
+            resultSet.getLong("user_id"),
+            resultSet.getString("news_title"),
+            resultSet.getString("detected_language"),
+            resultSet.getObject("is_fake_news", Boolean.class),
+            resultSet.getObject("confidence_score", Double.class),
+            resultSet.getObject("analysis_duration_ms", Long.class),
+            resultSet.getString("model_used"),
+            createdAt != null ? createdAt.toLocalDateTime() : null,
+            resultSet.getString("source_url"),
+            resultSet.getString("author"),
+            resultSet.getString("content_hash"),
+            resultSet.getObject("feedback_rating", Integer.class),
+            resultSet.getString("user_feedback"),
+            publicationDate != null ? publicationDate.toLocalDateTime() : null,
+            resultSet.getBytes("feature_vector")
+        );
+    }
+
+    private int deleteArchived(LocalDateTime start, LocalDateTime end, long maxId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_ARCHIVED)) {
+            statement.setTimestamp(1, Timestamp.valueOf(start));
+            statement.setTimestamp(2, Timestamp.valueOf(end));
+            statement.setLong(3, maxId);
+            return statement.executeUpdate();
+        }
+    }
+
+    // Archived history rows strictly older than the (createdAt, id) position, newest first
+    public List<NewsAnalysisSummary> findHistory(Long userId, LocalDateTime beforeCreatedAt, Long beforeId, int limit)
+            throws IOException {
+        List<NewsAnalysisSummary> result = new ArrayList<>();
+        NavigableMap<LocalDate, List<ArchiveSegmentIndex>> days = beforeCreatedAt != null
+                ? segments.headMap(beforeCreatedAt.toLocalDate(), true).descendingMap()
+                : segments.descendingMap();
+
+        for (List<ArchiveSegmentIndex> daySegments : days.values()) {
+            List<ArchivedAnalysis> dayRows = new ArrayList<>();
+            for (ArchiveSegmentIndex index : daySegments) {
+                UserBlock block = index.getUsers().get(userId);
+                if (block != null) {
+                    readBlock(index, block.getOffset(), block.getLength(), dayRows::add);
+                }
+            }
+            dayRows.sort(OLDEST_FIRST.reversed());
+
+            for (ArchivedAnalysis analysis : dayRows) {
+                if (beforeCreatedAt != null && !isBefore(analysis, beforeCreatedAt, beforeId)) {
+                    continue;
+                }
+                result.add(analysis.toSummary());
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public Optional<AnalysisContentRef> findContentRef(Long userId, Long analysisId) throws IOException {
+        for (List<ArchiveSegmentIndex> daySegments : segments.values()) {
+            for (ArchiveSegmentIndex index : daySegments) {
+                UserBlock block = index.getUsers().get(userId);
+                if (block == null || analysisId < block.getMinId() || analysisId > block.getMaxId()) {
+                    continue;
+                }
+                AnalysisContentRef[] found = new AnalysisContentRef[1];
+                readBlock(index, block.getOffset(), block.getLength(), analysis -> {
+                    if (analysis.getId().equals(analysisId)) {
+                        found[0] = new AnalysisContentRef(analysis.getContentHash(), analysis.getFeatureVector());
+                    }
+                });
+                if (found[0] != null) {
+                    return Optional.of(found[0]);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Archived totals for a user: {analyses, fake analyses}, answered from the in-memory indexes
+    public long[] countByUser(Long userId) {
+        long[] counts = new long[2];
+        for (List<ArchiveSegmentIndex> daySegments : segments.values()) {
+            for (ArchiveSegmentIndex index : daySegments) {
+                UserBlock block = index.getUsers().get(userId);
+                if (block != null) {
+                    counts[0] += block.getRows();
+                    counts[1] += block.getFakeRows();
+                }
+            }
+        }
+        return counts;
+    }
+
+    public void forEach(AnalysisExportFilter filter, ArchivedRowHandler handler) throws IOException {
+        NavigableMap<LocalDate, List<ArchiveSegmentIndex>> days = segments;
+        if (filter.getFrom() != null) {
+            days = days.tailMap(filter.getFrom().toLocalDate(), true);
+        }
+        if (filter.getTo() != null) {
+            days = days.headMap(filter.getTo().toLocalDate(), true);
+        }
+
+        // Every user block of a day is already sorted, so the day streams out as a k-way merge in
+        // (createdAt, id) order, like the live rows that follow it. Memory grows with the number of
+        // blocks in a day, not with the number of rows
+        for (List<ArchiveSegmentIndex> daySegments : days.values()) {
+            List<Closeable> open = new ArrayList<>();
+            try {
+                PriorityQueue<BlockCursor> heap = new PriorityQueue<>(
+                        Comparator.comparing(BlockCursor::current, OLDEST_FIRST));
+                for (ArchiveSegmentIndex index : daySegments) {
+                    Collection<UserBlock> blocks = index.getUsers().values();
+                    if (filter.getUserId() != null) {
+                        UserBlock block = index.getUsers().get(filter.getUserId());
+                        blocks = block != null ? List.of(block) : List.of();
+                    }
+                    if (blocks.isEmpty()) {
+                        continue;
+                    }
+                    // All blocks of a segment read through one channel with positional reads
+                    FileChannel channel = FileChannel.open(resolve(index), StandardOpenOption.READ);
+                    open.add(channel);
+                    for (UserBlock block : blocks) {
+                        BlockCursor cursor = openCursor(index, channel, block);
+                        open.add(cursor);
+                        if (cursor.advance()) {
+                            heap.add(cursor);
+                        }
+                    }
+                }
+
+                while (!heap.isEmpty()) {
+                    BlockCursor cursor = heap.poll();
+                    if (matches(filter, cursor.current())) {
+                        handler.handle(cursor.current());
+                    }
+                    if (cursor.advance()) {
+                        heap.add(cursor);
+                    }
+                }
+            } finally {
+                closeAll(open);
+            }
+        }
+    }
+
+    private BlockCursor openCursor(ArchiveSegmentIndex index, FileChannel channel, UserBlock block) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new BlockInputStream(channel, block.getOffset(), block.getLength()), MERGE_BUFFER_SIZE),
+                StandardCharsets.UTF_8), MERGE_BUFFER_SIZE);
+        if (index.isAscending()) {
+            return new BlockCursor(reader, null);
+        }
+        // Segments written before blocks were stored oldest first: reverse this one user-day block
+        List<ArchivedAnalysis> rows = new ArrayList<>((int) Math.min(block.getRows(), 10_000));
+        try (reader) {
+            readLines(reader, rows::add);
+        }
+        Collections.reverse(rows);
+        return new BlockCursor(null, rows.iterator());
+    }
+
+    private void closeAll(List<Closeable> closeables) {
+        for (Closeable closeable : closeables) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.debug("Failed to close archive reader: {}", e.getMessage());
+            }
+        }
+    }
+
+    // The rows of one user block, one at a time, either decoded lazily or from a reversed legacy block
+    private final class BlockCursor implements Closeable {
+        private final BufferedReader reader;
+        private final Iterator<ArchivedAnalysis> buffered;
+        private ArchivedAnalysis current;
+
+        BlockCursor(BufferedReader reader, Iterator<ArchivedAnalysis> buffered) {
+            this.reader = reader;
+            this.buffered = buffered;
+        }
+
+        ArchivedAnalysis current() {
+            return current;
+        }
+
+        boolean advance() throws IOException {
+            current = null;
+            if (buffered != null) {
+                current = buffered.hasNext() ? buffered.next() : null;
+                return current != null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    current = objectMapper.readValue(line, ArchivedAnalysis.class);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    // A byte range of a segment read with positional reads, so many blocks can share one channel.
+    // Closing it leaves the channel open
+    private static final class BlockInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        BlockInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, end - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    private boolean matches(AnalysisExportFilter filter, ArchivedAnalysis analysis) {
+        if (filter.getFrom() != null && analysis.getCreatedAt().isBefore(filter.getFrom())) {
+            return false;
+        }
+        if (filter.getTo() != null && !analysis.getCreatedAt().isBefore(filter.getTo())) {
+            return false;
+        }
+        if (filter.getLanguage() != null && !filter.getLanguage().equals(analysis.getDetectedLanguage())) {
+            return false;
+        }
+        if (filter.getModelUsed() != null && !filter.getModelUsed().equals(analysis.getModelUsed())) {
+            return false;
+        }
+        return filter.getMinConfidence() == null
+                || (analysis.getConfidenceScore() != null && analysis.getConfidenceScore() >= filter.getMinConfidence());
+    }
+
+    private boolean isBefore(ArchivedAnalysis analysis, LocalDateTime createdAt, Long id) {
+        int cmp = analysis.getCreatedAt().compareTo(createdAt);
+        return cmp < 0 || (cmp == 0 && analysis.getId() < id);
+    }
+
+    private Path resolve(ArchiveSegmentIndex index) {
+        return Paths.get(archiveLocation).resolve(index.getSegmentFile());
+    }
+
+    private void readBlock(ArchiveSegmentIndex index, long offset, long length, ArchivedRowHandler handler)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(index), StandardOpenOption.READ)) {
+            channel.position(offset);
+            InputStream bounded = new BoundedInputStream(Channels.newInputStream(channel), length);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new BufferedInputStream(bounded, 64 * 1024)), StandardCharsets.UTF_8));
+            readLines(reader, handler);
+        }
+    }
+
+    private void readLines(BufferedReader reader, ArchivedRowHandler handler) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                handler.handle(objectMapper.readValue(line, ArchivedAnalysis.class));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisCountService {
+
+    private static final int MAX_IDS_PER_UPDATE = 500;
+
+    private final UserRepository userRepository;
+
+    // Unflushed increments per user id; LongAdder stripes hot users across cells
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // Adders pruned on the previous flush, re-read once more to catch increments that raced the removal
+    private List<Map.Entry<Long, LongAdder>> retired = new ArrayList<>();
+
+    public void increment(Long userId) {
+        pending.computeIfAbsent(userId, id -> new LongAdder()).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${truthguard.counters.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+
+        for (Map.Entry<Long, LongAdder> entry : retired) {
+            long late = entry.getValue().sumThenReset();
+            if (late != 0) {
+                deltas.merge(entry.getKey(), late, Long::sum);
+            }
+        }
+        retired = new ArrayList<>();
+
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.merge(entry.getKey(), delta, Long::sum);
+            } else if (pending.remove(entry.getKey(), entry.getValue())) {
+                retired.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Users with the same delta share one set-based UPDATE
+        Map<Long, List<Long>> usersByDelta = new HashMap<>();
+        deltas.forEach((userId, delta) -> usersByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(userId));
+
+        for (Map.Entry<Long, List<Long>> group : usersByDelta.entrySet()) {
+            List<Long> userIds = group.getValue();
+            for (int from = 0; from < userIds.size(); from += MAX_IDS_PER_UPDATE) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + MAX_IDS_PER_UPDATE, userIds.size()));
+                try {
+                    userRepository.addAnalysisCount(group.getKey().intValue(), chunk);
+                } catch (Exception e) {
+                    log.error("Failed to flush analysis counts for {} users: {}", chunk.size(), e.getMessage(), e);
+                    // Put the increments back so the next flush retries them
+                    chunk.forEach(userId -> pending.computeIfAbsent(userId, id -> new LongAdder()).add(group.getKey()));
+                }
+            }
+        }
+        log.debug("Flushed analysis counts for {} users", deltas.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
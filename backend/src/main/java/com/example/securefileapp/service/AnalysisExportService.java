@@ -0,0 +1,218 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.AnalysisExportFilter;
+import com.example.securefileapp.dto.ArchivedAnalysis;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class AnalysisExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    // Metadata only: article bodies and feature vectors are fetched separately when needed
+    private static final String[] COLUMNS = {
+        "id", "user_id", "news_title", "detected_language", "is_fake_news", "confidence_score",
+        "analysis_duration_ms", "model_used", "created_at", "source_url", "author",
+        "content_hash", "feedback_rating"
+    };
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final AnalysisArchiveService analysisArchiveService;
+
+    @Value("${truthguard.export.fetch-size:500}")
+    private int fetchSize;
+
+    public AnalysisExportService(DataSource dataSource, ObjectMapper objectMapper,
+                                 AnalysisArchiveService analysisArchiveService) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.analysisArchiveService = analysisArchiveService;
+    }
+
+    public long export(AnalysisExportFilter filter, Format format, OutputStream outputStream) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String sql = buildQuery(filter, params);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (json != null) {
+            // Rows are separated by the explicit newline only, not Jackson's default space
+            json.setRootValueSeparator(null);
+        }
+        if (format == Format.CSV) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        // Archived segments hold the oldest rows, so they go out first
+        long[] archived = new long[1];
+        analysisArchiveService.forEach(filter, analysis -> {
+            writeRow(format, json, writer, toValues(analysis));
+            if (++archived[0] % fetchSize == 0) {
+                flush(json, writer);
+            }
+        });
+
+        try (Connection connection = dataSource.getConnection()) {
+            // Some drivers (PostgreSQL) only stream with a cursor inside a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+
+                long rows = archived[0];
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    Object[] values = new Object[COLUMNS.length];
+                    while (resultSet.next()) {
+                        for (int i = 0; i < COLUMNS.length; i++) {
+                            Object value = resultSet.getObject(i + 1);
+                            values[i] = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+                        }
+                        writeRow(format, json, writer, values);
+                        // Push each fetched batch to the client so nothing accumulates server-side
+                        if (++rows % fetchSize == 0) {
+                            flush(json, writer);
+                        }
+                    }
+                    flush(json, writer);
+                } catch (IOException e) {
+                    // Client went away: stop the database from producing more rows
+                    log.warn("Export aborted by client, cancelling query: {}", e.getMessage());
+                    statement.cancel();
+                    throw e;
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Export query failed", e);
+        }
+    }
+
+    private String buildQuery(AnalysisExportFilter filter, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", COLUMNS))
+                .append(" FROM news_analyses WHERE 1 = 1");
+
+        if (filter.getUserId() != null) {
+            sql.append(" AND user_id = ?");
+            params.add(filter.getUserId());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND created_at >= ?");
+            params.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND created_at < ?");
+            params.add(Timestamp.valueOf(filter.getTo()));
+        }
+        if (filter.getLanguage() != null) {
+            sql.append(" AND detected_language = ?");
+            params.add(filter.getLanguage());
+        }
+        if (filter.getModelUsed() != null) {
+            sql.append(" AND model_used = ?");
+            params.add(filter.getModelUsed());
+        }
+        if (filter.getMinConfidence() != null) {
+            sql.append(" AND confidence_score >= ?");
+            params.add(filter.getMinConfidence());
+        }
+
+        return sql.append(" ORDER BY created_at, id").toString();
+    }
+
+    private Object[] toValues(ArchivedAnalysis analysis) {
+        return new Object[] {
+            analysis.getId(), analysis.getUserId(), analysis.getNewsTitle(), analysis.getDetectedLanguage(),
+            analysis.getIsFakeNews(), analysis.getConfidenceScore(), analysis.getAnalysisDurationMs(),
+            analysis.getModelUsed(), analysis.getCreatedAt(), analysis.getSourceUrl(), analysis.getAuthor(),
+            analysis.getContentHash(), analysis.getFeedbackRating()
+        };
+    }
+
+    private void writeRow(Format format, JsonGenerator json, Writer writer, Object[] values) throws IOException {
+        if (format == Format.NDJSON) {
+            writeJsonRow(json, values);
+        } else {
+            writeCsvRow(writer, values);
+        }
+    }
+
+    private void writeJsonRow(JsonGenerator json, Object[] values) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = values[i];
+            json.writeFieldName(COLUMNS[i]);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Number number) {
+                json.writeNumber(number.toString());
+            } else if (value instanceof Boolean bool) {
+                json.writeBoolean(bool);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] instanceof Number number) {
+                writer.write(number.toString());
+            } else if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        // Titles, authors and URLs come from users; a leading formula character would be evaluated
+        // by spreadsheets, so such cells are prefixed with a quote and always quoted
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            return "\"'" + value.replace("\"", "\"\"") + '"';
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void flush(JsonGenerator json, Writer writer) throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+}
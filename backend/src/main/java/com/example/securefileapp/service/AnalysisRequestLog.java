@@ -0,0 +1,116 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.NewsAnalysisRequest;
+import com.example.securefileapp.dto.NewsAnalysisResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One structured line per analysis request on the truthguard.analysis logger, in place of the
+// free-text lines each stage used to write. Failed and slow requests are always logged; the rest
+// are sampled, so a fast successful request usually costs one random draw
+@Component
+@Slf4j(topic = "truthguard.analysis")
+public class AnalysisRequestLog {
+
+    @Value("${truthguard.logging.analysis.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${truthguard.logging.analysis.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+
+    public void record(NewsAnalysisRequest request, NewsAnalysisResponse response, String username,
+                       long durationNanos, Map<String, Double> stageTimingsMs, Exception error) {
+        String reason;
+        if (error != null) {
+            reason = "error";
+        } else if (durationNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)) {
+            reason = "slow";
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = "sampled";
+        } else {
+            return;
+        }
+        if (error != null ? !log.isErrorEnabled() : !log.isInfoEnabled()) {
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(256).append('{');
+        field(line, "event", "analysis");
+        field(line, "reason", reason);
+        field(line, "user", username);
+        field(line, "durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        field(line, "titleLength", request.getTitle() != null ? request.getTitle().length() : 0);
+        field(line, "contentLength", request.getContent() != null ? request.getContent().length() : 0);
+        field(line, "requestedLanguage", request.getLanguage());
+        if (response != null) {
+            field(line, "language", response.getDetectedLanguage());
+            field(line, "model", response.getModelUsed());
+            field(line, "fakeNews", response.getIsFakeNews());
+            field(line, "confidence", response.getConfidenceScore());
+        }
+        if (stageTimingsMs != null) {
+            line.append("\"stagesMs\":{");
+            int start = line.length();
+            stageTimingsMs.forEach((stage, millis) -> field(line, stage, Math.round(millis * 1000) / 1000.0));
+            trimComma(line, start);
+            line.append("},");
+        }
+        if (error != null) {
+            field(line, "error", error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+        trimComma(line, 1);
+        line.append('}');
+
+        if (error != null) {
+            log.error(line.toString(), error);
+        } else {
+            log.info(line.toString());
+        }
+    }
+
+    private static void field(StringBuilder line, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        line.append('"').append(name).append("\":");
+        if (value instanceof Number || value instanceof Boolean) {
+            line.append(value);
+        } else {
+            appendString(line, value.toString());
+        }
+        line.append(',');
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static void trimComma(StringBuilder line, int start) {
+        if (line.length() > start && line.charAt(line.length() - 1) == ',') {
+            line.setLength(line.length() - 1);
+        }
+    }
+}
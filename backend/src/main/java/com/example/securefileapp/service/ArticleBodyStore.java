@@ -0,0 +1,111 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.ArticleBody;
+import com.example.securefileapp.repository.ArticleBodyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArticleBodyStore {
+
+    private static final String CODEC_DEFLATE = "deflate-fast";
+
+    private final ArticleBodyRepository articleBodyRepository;
+
+    // existing is true when an identical body was already stored
+    public record StoredBody(String contentHash, boolean existing) {
+    }
+    
+    // Store the body once per distinct text and return its content hash
+    public String store(String content) {
+        return storeBody(content).contentHash();
+    }
+    
+    public StoredBody storeBody(String content) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        String contentHash = hash(raw);
+
+        // Repeated bodies are the common case, so check before paying for compression
+        if (articleBodyRepository.existsById(contentHash)) {
+            return new StoredBody(contentHash, true);
+        }
+
+        try {
+            articleBodyRepository.saveAndFlush(
+                new ArticleBody(contentHash, compress(raw), raw.length, CODEC_DEFLATE, null));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer stored the same body first; the row is identical
+            log.debug("Article body {} already stored by another writer", contentHash);
+            return new StoredBody(contentHash, true);
+        }
+        return new StoredBody(contentHash, false);
+    }
+
+    public Optional<String> load(String contentHash) {
+        return articleBodyRepository.findById(contentHash)
+                .map(body -> new String(decompress(body.getCompressedContent(), body.getOriginalLength()),
+                                        StandardCharsets.UTF_8));
+    }
+
+    public static String hash(byte[] raw) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] decompress(byte[] compressed, int originalLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[originalLength];
+            int offset = 0;
+            while (offset < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, offset, originalLength - offset);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += read;
+            }
+            if (offset != originalLength) {
+                throw new IllegalStateException("Truncated article body: expected " + originalLength + " bytes, got " + offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt article body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
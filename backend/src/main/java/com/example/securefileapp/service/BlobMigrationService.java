@@ -0,0 +1,149 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.FileBlob;
+import com.example.securefileapp.model.StoredFile;
+import com.example.securefileapp.repository.FileBlobRepository;
+import com.example.securefileapp.repository.StoredFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+// Background migration of older storage layouts, a batch at a time while the application keeps serving:
+// files uploaded before the blob store existed move from their UUID names into content-addressed blobs,
+// and blobs written before the directory fan-out move into their sharded directories
+@Service
+@Slf4j
+public class BlobMigrationService {
+
+    private final StoredFileRepository fileRepository;
+    private final FileBlobRepository blobRepository;
+    private final FileStorageService fileStorageService;
+    private final FileBlobStore blobStore;
+    private final ShareTokenIndex shareTokenIndex;
+    private final StorageCompression compression;
+
+    @Value("${truthguard.blobs.migrate-legacy:true}")
+    private boolean enabled;
+
+    private volatile boolean finished;
+
+    public BlobMigrationService(StoredFileRepository fileRepository, FileBlobRepository blobRepository,
+                                FileStorageService fileStorageService, FileBlobStore blobStore,
+                                ShareTokenIndex shareTokenIndex, StorageCompression compression) {
+        this.fileRepository = fileRepository;
+        this.blobRepository = blobRepository;
+        this.fileStorageService = fileStorageService;
+        this.blobStore = blobStore;
+        this.shareTokenIndex = shareTokenIndex;
+        this.compression = compression;
+    }
+
+    @Scheduled(initialDelayString = "${truthguard.blobs.migration-initial-delay-ms:60000}",
+               fixedDelayString = "${truthguard.blobs.migration-interval-ms:300000}")
+    public void migrateLegacyFiles() {
+        if (!enabled || finished) {
+            return;
+        }
+        migrateUuidFiles();
+        relocateFlatBlobs();
+
+        // Everything written from now on uses the current layout; leftovers are retried next run
+        finished = fileRepository.findTop100ByBlobHashIsNullAndIdGreaterThanOrderByIdAsc(0L).isEmpty()
+                && blobRepository.findTop100ByStoragePathIsNullAndHashGreaterThanOrderByHashAsc("").isEmpty();
+    }
+
+    private void migrateUuidFiles() {
+        long lastId = 0;
+        int migrated = 0;
+        List<StoredFile> batch;
+        while (!(batch = fileRepository.findTop100ByBlobHashIsNullAndIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+            for (StoredFile file : batch) {
+                lastId = file.getId();
+                try {
+                    if (migrate(file)) {
+                        migrated++;
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to migrate file {} to the blob store: {}", file.getId(), e.getMessage());
+                }
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated {} legacy files to the blob store", migrated);
+        }
+    }
+
+    private void relocateFlatBlobs() {
+        String lastHash = "";
+        int relocated = 0;
+        List<FileBlob> batch;
+        while (!(batch = blobRepository.findTop100ByStoragePathIsNullAndHashGreaterThanOrderByHashAsc(lastHash)).isEmpty()) {
+            for (FileBlob blob : batch) {
+                lastHash = blob.getHash();
+                try {
+                    if (blobStore.relocate(blob)) {
+                        relocated++;
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to relocate blob {}: {}", blob.getHash(), e.getMessage());
+                }
+            }
+        }
+
+        if (relocated > 0) {
+            log.info("Relocated {} blobs into the sharded layout", relocated);
+        }
+    }
+
+    private boolean migrate(StoredFile file) throws IOException {
+        Path legacy = fileStorageService.getFileOnDisk(file).toPath();
+        if (!Files.exists(legacy)) {
+            log.warn("Legacy file for {} is missing at {}", file.getId(), legacy);
+            return false;
+        }
+
+        MessageDigest digest = FileStorageService.newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(legacy), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        FileBlob blob = blobStore.retainIfPresent(hash);
+        if (blob == null) {
+            // Link rather than move, so downloads keep working until the row points at the blob
+            Path incoming = blobStore.newIncomingFile();
+            try {
+                Files.createLink(incoming, legacy);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(legacy, incoming);
+            }
+            long size = Files.size(legacy);
+            blob = blobStore.adopt(incoming, hash, size, compression.isCompressible(file.getContentType(), size));
+        }
+
+        if (fileRepository.attachBlob(file.getId(), hash, blobStore.pathOf(blob), blob.getEncoding(),
+                FileStorageService.toEtag(hash)) == 0) {
+            // Deleted or migrated concurrently: give back the reference taken above
+            blobStore.release(hash);
+            return false;
+        }
+        if (file.getShareToken() != null) {
+            // Shared downloads resolve from the in-memory snapshot, which still names the legacy file
+            fileRepository.findById(file.getId()).ifPresent(shareTokenIndex::refresh);
+        }
+        Files.deleteIfExists(legacy);
+        return true;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.StoredFile;
+import com.example.securefileapp.model.UploadChunk;
+import com.example.securefileapp.model.UploadSession;
+import com.example.securefileapp.model.User;
+import com.example.securefileapp.repository.UploadChunkRepository;
+import com.example.securefileapp.repository.UploadSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resumable uploads: chunks are written by offset straight into a preallocated temp file,
+// so nothing is buffered by the servlet layer and a dropped connection only loses one chunk
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final String UPLOAD_DIR = ".uploads";
+    private static final String CHUNK_SUFFIX = ".chunk";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    // Moving a verified chunk into the part file and committing the session must not interleave.
+    // Sessions being committed refuse new chunks and a second commit
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Set<String> committing = ConcurrentHashMap.newKeySet();
+
+    private final FileStorageService fileStorageService;
+    private final UploadSessionRepository sessionRepository;
+    private final UploadChunkRepository chunkRepository;
+    private final StorageLayout layout;
+
+    @Value("${truthguard.upload.default-chunk-size:8388608}")
+    private int defaultChunkSize;
+
+    @Value("${truthguard.upload.max-chunk-size:67108864}")
+    private int maxChunkSize;
+
+    @Value("${truthguard.upload.max-file-size:10737418240}")
+    private long maxFileSize;
+
+    @Value("${truthguard.upload.session-ttl-ms:86400000}")
+    private long sessionTtlMs;
+
+    public ChunkedUploadService(FileStorageService fileStorageService,
+                                UploadSessionRepository sessionRepository,
+                                UploadChunkRepository chunkRepository,
+                                StorageLayout layout) {
+        this.fileStorageService = fileStorageService;
+        this.sessionRepository = sessionRepository;
+        this.chunkRepository = chunkRepository;
+        this.layout = layout;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public UploadSession createSession(User owner, String originalFilename, String contentType,
+                                       long totalSize, Integer requestedChunkSize) throws IOException {
+        if (totalSize <= 0 || totalSize > maxFileSize) {
+            throw new IllegalArgumentException("totalSize must be between 1 and " + maxFileSize);
+        }
+        int chunkSize = requestedChunkSize != null ? requestedChunkSize : defaultChunkSize;
+        if (chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + maxChunkSize);
+        }
+        long chunkCount = (totalSize + chunkSize - 1) / chunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many chunks for this file size");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setOwner(owner);
+        session.setOriginalFilename(originalFilename);
+        session.setContentType(contentType);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) chunkCount);
+        session.setCreatedAt(Instant.now());
+        session.setLastActivity(session.getCreatedAt());
+
+        // Reserve the full length up front so chunks can land in any order
+        Path partFile = partFile(session.getId());
+        try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+            file.setLength(totalSize);
+        }
+        return sessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> findSession(String uploadId, User owner) {
+        return sessionRepository.findByIdAndOwnerId(uploadId, owner.getId());
+    }
+
+    public List<Integer> receivedChunks(UploadSession session) {
+        return chunkRepository.findChunkIndexes(session.getId());
+    }
+
+    // Writes one chunk at the given offset; returns the chunk's hex SHA-256. The bytes land in a scratch
+    // file first and only replace the chunk in the part file once their length and checksum are right,
+    // so a bad retry cannot corrupt a chunk that was already received
+    public String writeChunk(UploadSession session, long offset, long contentLength, String expectedSha256,
+                             InputStream body) throws IOException {
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new IllegalArgumentException("offset must be a chunk boundary within the file");
+        }
+        int chunkIndex = (int) (offset / session.getChunkSize());
+        long expectedLength = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+        if (contentLength >= 0 && contentLength != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + chunkIndex + " must be " + expectedLength + " bytes");
+        }
+
+        Path scratch = layout.directory(UPLOAD_DIR).resolve(session.getId() + "." + UUID.randomUUID() + CHUNK_SUFFIX);
+        try {
+            MessageDigest digest = FileStorageService.newSha256();
+            long written;
+            try (InputStream in = new DigestInputStream(body, digest);
+                 OutputStream out = Files.newOutputStream(scratch)) {
+                written = copy(in, out, expectedLength);
+                if (written != expectedLength || in.read() != -1) {
+                    throw new IllegalArgumentException("Chunk " + chunkIndex + " must be " + expectedLength + " bytes");
+                }
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + chunkIndex);
+            }
+
+            synchronized (lockFor(session.getId())) {
+                if (committing.contains(session.getId())) {
+                    throw new IllegalStateException("Upload " + session.getId() + " is being committed");
+                }
+                try (FileChannel source = FileChannel.open(scratch, StandardOpenOption.READ);
+                     FileChannel part = FileChannel.open(partFile(session.getId()), StandardOpenOption.WRITE)) {
+                    long moved = 0;
+                    while (moved < written) {
+                        moved += part.transferFrom(source, offset + moved, written - moved);
+                    }
+                }
+                // The receipt follows the bytes, and a replaced chunk takes its new checksum
+                if (chunkRepository.updateSha256(session.getId(), chunkIndex, sha256) == 0) {
+                    UploadChunk chunk = new UploadChunk();
+                    chunk.setUploadId(session.getId());
+                    chunk.setChunkIndex(chunkIndex);
+                    chunk.setSha256(sha256);
+                    chunkRepository.save(chunk);
+                }
+            }
+            sessionRepository.touch(session.getId(), Instant.now());
+            return sha256;
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    public StoredFile commit(UploadSession session, User owner) throws IOException {
+        synchronized (lockFor(session.getId())) {
+            if (!committing.add(session.getId())) {
+                throw new IllegalStateException("Upload " + session.getId() + " is already being committed");
+            }
+        }
+        try {
+            return assemble(session, owner);
+        } finally {
+            committing.remove(session.getId());
+        }
+    }
+
+    private StoredFile assemble(UploadSession session, User owner) throws IOException {
+        long received = chunkRepository.countByUploadId(session.getId());
+        if (received != session.getChunkCount()) {
+            throw new IllegalStateException("Upload incomplete: " + received + " of "
+                    + session.getChunkCount() + " chunks received");
+        }
+
+        Path partFile = partFile(session.getId());
+        MessageDigest digest = FileStorageService.newSha256();
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Make the data durable before it becomes visible under its final name
+            channel.force(true);
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        StoredFile storedFile = fileStorageService.storeAssembledFile(partFile, session.getOriginalFilename(),
+                session.getContentType(), digest.digest(), owner);
+        discard(session);
+        return storedFile;
+    }
+
+    public void abort(UploadSession session) throws IOException {
+        discard(session);
+    }
+
+    @Scheduled(fixedDelayString = "${truthguard.upload.cleanup-interval-ms:600000}")
+    public void removeAbandonedSessions() {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(sessionTtlMs));
+        for (UploadSession session : sessionRepository.findByLastActivityBefore(cutoff)) {
+            try {
+                discard(session);
+                log.info("Removed abandoned upload session {}", session.getId());
+            } catch (Exception e) {
+                log.error("Failed to remove upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        chunkRepository.deleteByUploadId(session.getId());
+        sessionRepository.deleteById(session.getId());
+        Files.deleteIfExists(partFile(session.getId()));
+        // Scratch chunks left behind by a crash mid-write
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(layout.directory(UPLOAD_DIR),
+                session.getId() + ".*" + CHUNK_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    private long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, limit)];
+        long copied = 0;
+        int read;
+        while (copied < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied))) != -1) {
+            out.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    private Object lockFor(String uploadId) {
+        return locks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path partFile(String uploadId) throws IOException {
+        return layout.directory(UPLOAD_DIR).resolve(uploadId + ".part");
+    }
+}
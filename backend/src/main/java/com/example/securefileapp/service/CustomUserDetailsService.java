@@ -1,27 +1,25 @@
 package com.example.securefileapp.service;
 
 import com.example.securefileapp.model.User;
-import com.example.securefileapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.userdetails.User.UserBuilder;
-import org.springframework.security.core.userdetails.User as SpringUser;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
-    private UserRepository userRepository;
+    private UserCacheService userCacheService;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = userCacheService.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        UserBuilder builder = SpringUser.withUsername(user.getUsername())
+        UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
                 .password(user.getPassword())
-                .roles("USER");
+                .roles(Boolean.TRUE.equals(user.getIsAdmin()) ? new String[]{"USER", "ADMIN"} : new String[]{"USER"});
         return builder.build();
     }
-} 
\ No newline at end of file
+}
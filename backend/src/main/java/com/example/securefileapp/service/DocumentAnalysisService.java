@@ -0,0 +1,323 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.DocumentAnalysisResponse;
+import com.example.securefileapp.dto.DocumentSection;
+import com.example.securefileapp.model.StoredFile;
+import com.example.securefileapp.service.FakeNewsDetectionService.PredictionResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+// Runs the fake-news pipeline over a stored text document: the file is decoded through memory-mapped
+// windows (or a streaming inflater for gzip-stored files), cut into overlapping sections, and the
+// sections are analyzed in parallel. Only one window and a bounded number of in-flight sections are
+// held at a time, so memory stays flat for large files
+@Service
+@Slf4j
+public class DocumentAnalysisService {
+
+    private static final int MAP_WINDOW_BYTES = 16 * 1024 * 1024;
+
+    private final FakeNewsDetectionService fakeNewsDetectionService;
+    private final LanguageDetectionService languageDetectionService;
+    private final FileStorageService fileStorageService;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    @Value("${truthguard.document.section-chars:8000}")
+    private int sectionChars;
+
+    @Value("${truthguard.document.overlap-chars:400}")
+    private int overlapChars;
+
+    public DocumentAnalysisService(FakeNewsDetectionService fakeNewsDetectionService,
+                                   LanguageDetectionService languageDetectionService,
+                                   FileStorageService fileStorageService,
+                                   @Value("${truthguard.document.parallelism:0}") int parallelism) {
+        this.fakeNewsDetectionService = fakeNewsDetectionService;
+        this.languageDetectionService = languageDetectionService;
+        this.fileStorageService = fileStorageService;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = threads * 2;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "document-analysis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isAnalyzable(StoredFile file) {
+        String contentType = file.getContentType();
+        if (contentType == null) {
+            // Without a declared type there is no telling text from binary
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return "text".equals(mediaType.getType())
+                    || mediaType.getSubtype().equals("json") || mediaType.getSubtype().endsWith("+json")
+                    || mediaType.getSubtype().equals("xml") || mediaType.getSubtype().endsWith("+xml");
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public DocumentAnalysisResponse analyze(StoredFile file, String language) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path path = fileStorageService.getFileOnDisk(file).toPath();
+
+        try (Reader reader = openReader(file, path)) {
+            SectionAnalysis analysis = new SectionAnalysis(language);
+            List<DocumentSection> sections = new ArrayList<>();
+            long characters;
+            try {
+                characters = splitIntoSections(reader, analysis);
+                for (CompletableFuture<DocumentSection> future : analysis.futures) {
+                    sections.add(future.join());
+                }
+            } catch (CompletionException e) {
+                analysis.cancel();
+                throw new IllegalStateException("Section analysis failed", e.getCause());
+            } catch (IOException | RuntimeException e) {
+                analysis.cancel();
+                throw e;
+            }
+            return merge(file, analysis, sections, characters, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private final class SectionAnalysis {
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final List<CompletableFuture<DocumentSection>> futures = new ArrayList<>();
+        String language;
+        volatile String modelUsed;
+        volatile Throwable failure;
+
+        SectionAnalysis(String language) {
+            this.language = language == null || language.isEmpty() ? null : language;
+        }
+
+        void submit(String text, long startOffset) {
+            // Stop reading the file as soon as any section has failed
+            if (failure != null) {
+                throw new IllegalStateException("Section analysis failed", failure);
+            }
+            if (language == null) {
+                // The opening section decides the language for the whole document
+                language = languageDetectionService.detectLanguage(text);
+            }
+            int index = futures.size();
+            String sectionLanguage = language;
+            inFlight.acquireUninterruptibly();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    PredictionResult prediction = fakeNewsDetectionService.analyzeSection(text, sectionLanguage);
+                    modelUsed = prediction.getModelName();
+                    double confidence = prediction.getConfidence();
+                    double fakeProbability = prediction.isFakeNews() ? 0.5 + confidence / 2 : 0.5 - confidence / 2;
+                    return new DocumentSection(index, startOffset, startOffset + text.length(),
+                            prediction.isFakeNews(), confidence, fakeProbability);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    inFlight.release();
+                }
+            }, executor));
+        }
+
+        // Sections not yet started are dropped; running ones finish but their results are ignored
+        void cancel() {
+            for (CompletableFuture<DocumentSection> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    // Cuts the text into sectionChars-sized sections that overlap by overlapChars, preferring to cut at
+    // whitespace so words are not split. Returns the total number of characters read
+    private long splitIntoSections(Reader reader, SectionAnalysis analysis) throws IOException {
+        char[] window = new char[sectionChars];
+        int overlap = Math.min(overlapChars, sectionChars / 2);
+        int filled = 0;
+        long windowStart = 0;
+        int read;
+
+        while ((read = reader.read(window, filled, sectionChars - filled)) != -1) {
+            filled += read;
+            if (filled < sectionChars) {
+                continue;
+            }
+            int cut = filled;
+            for (int i = filled - 1; i >= filled - sectionChars / 10; i--) {
+                if (Character.isWhitespace(window[i])) {
+                    cut = i + 1;
+                    break;
+                }
+            }
+            analysis.submit(new String(window, 0, cut), windowStart);
+
+            int next = cut - overlap;
+            System.arraycopy(window, next, window, 0, filled - next);
+            windowStart += next;
+            filled -= next;
+        }
+
+        // The tail is only worth a section if it holds more than the overlap already analyzed
+        if (filled > 0 && (analysis.futures.isEmpty() || filled > overlap)) {
+            analysis.submit(new String(window, 0, filled), windowStart);
+        }
+        return windowStart + filled;
+    }
+
+    // Length-weighted mean of the section probabilities decides the document verdict
+    private DocumentAnalysisResponse merge(StoredFile file, SectionAnalysis analysis, List<DocumentSection> sections,
+                                           long characters, long durationMs) {
+        double weightedProbability = 0.0;
+        long totalWeight = 0;
+        int fakeSections = 0;
+        for (DocumentSection section : sections) {
+            long weight = section.getEndOffset() - section.getStartOffset();
+            weightedProbability += section.getFakeProbability() * weight;
+            totalWeight += weight;
+            if (section.getIsFakeNews()) {
+                fakeSections++;
+            }
+        }
+
+        double fakeProbability = totalWeight > 0 ? weightedProbability / totalWeight : 0.5;
+        boolean isFakeNews = fakeProbability > 0.5;
+        double confidence = Math.max(0.1, Math.min(0.95, Math.abs(fakeProbability - 0.5) * 2));
+
+        return new DocumentAnalysisResponse(file.getId(), file.getOriginalFilename(), analysis.language,
+                analysis.modelUsed, isFakeNews, confidence, fakeProbability, characters, sections.size(),
+                fakeSections, durationMs, sections);
+    }
+
+    // Files compressed on ingest go through a streaming inflater and decoder instead of a mapping
+    private Reader openReader(StoredFile file, Path path) throws IOException {
+        if (StorageCompression.GZIP.equals(file.getContentEncoding())) {
+            CharsetDecoder decoder = charsetOf(file).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            return new InputStreamReader(new GZIPInputStream(Files.newInputStream(path), 64 * 1024), decoder);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new MappedTextReader(channel, charsetOf(file));
+    }
+
+    private Charset charsetOf(StoredFile file) {
+        try {
+            if (file.getContentType() != null) {
+                Charset charset = MediaType.parseMediaType(file.getContentType()).getCharset();
+                if (charset != null) {
+                    return charset;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Unparseable content type {} for file {}", file.getContentType(), file.getId());
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // Decodes a file through successive read-only mappings, so no byte buffer lives on the heap.
+    // A multi-byte sequence split across two windows is picked up again at the start of the next one
+    static final class MappedTextReader extends Reader {
+        private final FileChannel channel;
+        private final long size;
+        private final CharsetDecoder decoder;
+        private final CharBuffer pending = CharBuffer.allocate(8192);
+        private MappedByteBuffer mapped;
+        private long mappedStart;
+        private boolean remap;
+        private boolean flushed;
+
+        MappedTextReader(FileChannel channel, Charset charset) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            pending.flip();
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!pending.hasRemaining() && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, pending.remaining());
+            pending.get(buffer, offset, count);
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            pending.clear();
+            while (pending.position() == 0) {
+                if (mapped == null || !mapped.hasRemaining() || remap) {
+                    long next = mapped == null ? 0 : mappedStart + mapped.position();
+                    if (next >= size) {
+                        if (!flushed) {
+                            decoder.decode(ByteBuffer.allocate(0), pending, true);
+                            decoder.flush(pending);
+                            flushed = true;
+                        }
+                        break;
+                    }
+                    mappedStart = next;
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(MAP_WINDOW_BYTES, size - next));
+                    remap = false;
+                }
+                boolean last = mappedStart + mapped.limit() >= size;
+                CoderResult result = decoder.decode(mapped, pending, last);
+                if (result.isUnderflow() && mapped.hasRemaining() && !last) {
+                    remap = true;
+                }
+            }
+            pending.flip();
+            return pending.hasRemaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mapped = null;
+            channel.close();
+        }
+    }
+}
@@ -3,33 +3,45 @@ package com.example.securefileapp.service;
 import com.example.securefileapp.dto.NewsAnalysisRequest;
 import com.example.securefileapp.dto.NewsAnalysisResponse;
 import com.example.securefileapp.model.NewsAnalysis;
-import lombok.extern.slf4j.Slf4j;
+import com.example.securefileapp.service.PipelineMetrics.Stage;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Service
-@Slf4j
 public class FakeNewsDetectionService {
     
     private final LanguageDetectionService languageDetectionService;
     private final TextPreprocessingService textPreprocessingService;
     private final ModelService modelService;
+    private final PipelineMetrics pipelineMetrics;
     
     public FakeNewsDetectionService(
             LanguageDetectionService languageDetectionService,
             TextPreprocessingService textPreprocessingService,
-            ModelService modelService) {
+            ModelService modelService,
+            PipelineMetrics pipelineMetrics) {
         this.languageDetectionService = languageDetectionService;
         this.textPreprocessingService = textPreprocessingService;
         this.modelService = modelService;
+        this.pipelineMetrics = pipelineMetrics;
     }
     
+    // Runs and publishes the pipeline on its own; stageTimingsMs ends with the pipeline total
     public NewsAnalysisResponse analyzeNews(NewsAnalysisRequest request) {
-        long startTime = System.currentTimeMillis();
-        
+        PipelineMetrics.Timings timings = pipelineMetrics.start();
+        NewsAnalysisResponse response = analyzeNews(request, timings);
+        pipelineMetrics.record(timings, response.getDetectedLanguage(), response.getModelUsed());
+        response.setStageTimingsMs(timings.toMillis());
+        return response;
+    }
+    
+    // Charges each stage to the caller's timings, which go on to time what follows (persistence)
+    // and publish them once the request is complete
+    public NewsAnalysisResponse analyzeNews(NewsAnalysisRequest request, PipelineMetrics.Timings timings) {
         try {
             // Step 1: Language Detection
             String detectedLanguage = request.getLanguage();
@@ -38,22 +50,27 @@ public class FakeNewsDetectionService {
                     request.getTitle() + " " + request.getContent()
                 );
             }
+            timings.language(detectedLanguage);
+            timings.mark(Stage.LANGUAGE_DETECTION);
             
             // Step 2: Text Preprocessing
             String preprocessedTitle = textPreprocessingService.preprocessText(request.getTitle(), detectedLanguage);
             String preprocessedContent = textPreprocessingService.preprocessText(request.getContent(), detectedLanguage);
+            timings.mark(Stage.PREPROCESSING);
             
             // Step 3: Feature Extraction
             Map<String, Double> features = extractFeatures(preprocessedTitle, preprocessedContent, detectedLanguage);
+            timings.mark(Stage.FEATURE_EXTRACTION);
             
             // Step 4: Model Prediction
             PredictionResult prediction = modelService.predict(features, detectedLanguage);
+            timings.mark(Stage.PREDICTION);
             
             // Step 5: Generate Explanation
             String explanation = generateExplanation(features, prediction, detectedLanguage);
             String recommendation = generateRecommendation(prediction.getConfidence(), detectedLanguage);
-            
-            long analysisDuration = System.currentTimeMillis() - startTime;
+            timings.mark(Stage.EXPLANATION);
+            timings.add(Stage.PIPELINE, timings.elapsedNanos());
             
             return NewsAnalysisResponse.builder()
                 .newsTitle(request.getTitle())
@@ -61,9 +78,9 @@ public class FakeNewsDetectionService {
                 .detectedLanguage(detectedLanguage)
                 .isFakeNews(prediction.isFakeNews())
                 .confidenceScore(prediction.getConfidence())
-                .analysisDurationMs(analysisDuration)
+                .analysisDurationMs(TimeUnit.NANOSECONDS.toMillis(timings.nanos(Stage.PIPELINE)))
                 .modelUsed(prediction.getModelName())
-                .createdAt(new Date())
+                .createdAt(LocalDateTime.now())
                 .sourceUrl(request.getSourceUrl())
                 .author(request.getAuthor())
                 .featureScores(features)
@@ -73,12 +90,19 @@ public class FakeNewsDetectionService {
                 .build();
                 
         } catch (Exception e) {
-            log.error("Error analyzing news: {}", e.getMessage(), e);
+            // Logged once, with the request, by AnalysisRequestLog
             throw new RuntimeException("Failed to analyze news content", e);
         }
     }
     
-    private Map<String, Double> extractFeatures(String title, String content, String language) {
+    // Preprocessing, feature extraction and prediction over one section of a longer document
+    public PredictionResult analyzeSection(String content, String language) {
+        String preprocessedContent = textPreprocessingService.preprocessText(content, language);
+        Map<String, Double> features = extractFeatures("", preprocessedContent, language);
+        return modelService.predict(features, language);
+    }
+    
+    public Map<String, Double> extractFeatures(String title, String content, String language) {
         Map<String, Double> features = new HashMap<>();
         
         // Text-based features
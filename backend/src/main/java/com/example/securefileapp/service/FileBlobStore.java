@@ -0,0 +1,155 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.FileBlob;
+import com.example.securefileapp.repository.FileBlobRepository;
+import com.example.securefileapp.repository.StoredFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.UUID;
+
+// File bytes stored once per SHA-256 under the sharded blob layout, with a reference count per blob
+@Service
+@Slf4j
+public class FileBlobStore {
+
+    private static final String INCOMING_DIR = ".incoming";
+    private static final int LOCK_STRIPES = 256;
+
+    // Adopting, releasing and relocating the same hash must not interleave, or a blob could be
+    // deleted or moved right after a new reference to it was counted
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final FileBlobRepository blobRepository;
+    private final StoredFileRepository fileRepository;
+    private final StorageLayout layout;
+    private final ShareTokenIndex shareTokenIndex;
+    private final StorageCompression compression;
+
+    public FileBlobStore(FileBlobRepository blobRepository, StoredFileRepository fileRepository,
+                         StorageLayout layout, ShareTokenIndex shareTokenIndex, StorageCompression compression) {
+        this.blobRepository = blobRepository;
+        this.fileRepository = fileRepository;
+        this.layout = layout;
+        this.shareTokenIndex = shareTokenIndex;
+        this.compression = compression;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Scratch file on the same filesystem as the blobs, so adopting it is a rename
+    public Path newIncomingFile() throws IOException {
+        return layout.directory(INCOMING_DIR).resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    // Counts a new reference if the blob already exists, so the caller can skip writing the bytes.
+    // Returns the blob, or null if it does not exist yet
+    public FileBlob retainIfPresent(String hash) {
+        synchronized (lockFor(hash)) {
+            return blobRepository.incrementRefCount(hash) == 1 ? blobRepository.findById(hash).orElse(null) : null;
+        }
+    }
+
+    // Takes ownership of source: it becomes the blob (gzip-compressed first when compress is set and it
+    // pays off), or is deleted if the blob already exists
+    public FileBlob adopt(Path source, String hash, long size, boolean compress) throws IOException {
+        // Compress outside the lock; losing a race to an identical upload only wastes this copy
+        Path compressed = compress ? compression.compress(source) : null;
+        synchronized (lockFor(hash)) {
+            if (blobRepository.incrementRefCount(hash) == 1) {
+                Files.deleteIfExists(source);
+                if (compressed != null) {
+                    Files.deleteIfExists(compressed);
+                }
+                return blobRepository.findById(hash).orElseThrow();
+            }
+
+            String relativePath = layout.blobPath(hash);
+            Path chosen = source;
+            String encoding = null;
+            long storedSize = size;
+            if (compressed != null) {
+                relativePath += ".gz";
+                chosen = compressed;
+                encoding = StorageCompression.GZIP;
+                storedSize = Files.size(compressed);
+            }
+
+            Path target = layout.resolve(relativePath);
+            try {
+                layout.ensureDirectory(target.getParent());
+                Files.move(chosen, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                layout.forgetDirectory(target.getParent());
+                layout.ensureDirectory(target.getParent());
+                Files.move(chosen, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (compressed != null) {
+                Files.deleteIfExists(source);
+            }
+            return blobRepository.save(new FileBlob(hash, size, 1, relativePath, encoding, storedSize, Instant.now()));
+        }
+    }
+
+    public String pathOf(FileBlob blob) {
+        return blob.getStoragePath() != null ? blob.getStoragePath() : layout.flatBlobPath(blob.getHash());
+    }
+
+    public void release(String hash) throws IOException {
+        synchronized (lockFor(hash)) {
+            String relativePath = storagePath(hash);
+            blobRepository.decrementRefCount(hash);
+            if (blobRepository.deleteIfUnreferenced(hash) == 1) {
+                Files.deleteIfExists(layout.resolve(relativePath));
+                log.debug("Deleted unreferenced blob {}", hash);
+            }
+        }
+    }
+
+    // Moves a blob written before the fan-out into its sharded directory. The new path is linked in
+    // and every row is repointed before the flat name disappears, so downloads never miss it
+    public boolean relocate(FileBlob blob) throws IOException {
+        String hash = blob.getHash();
+        synchronized (lockFor(hash)) {
+            Path flat = layout.resolve(layout.flatBlobPath(hash));
+            String relativePath = layout.blobPath(hash);
+            Path target = layout.resolve(relativePath);
+            if (!Files.exists(flat) && !Files.exists(target)) {
+                log.warn("Blob {} is missing from disk", hash);
+                return false;
+            }
+            if (!Files.exists(target)) {
+                layout.ensureDirectory(target.getParent());
+                try {
+                    Files.createLink(target, flat);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Path incoming = newIncomingFile();
+                    Files.copy(flat, incoming);
+                    Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            blobRepository.setStoragePath(hash, relativePath);
+            fileRepository.repointBlob(hash, relativePath);
+            fileRepository.findByBlobHashAndShareTokenIsNotNull(hash).forEach(shareTokenIndex::refresh);
+            Files.deleteIfExists(flat);
+            return true;
+        }
+    }
+
+    private String storagePath(String hash) {
+        return blobRepository.findById(hash)
+                .map(FileBlob::getStoragePath)
+                .orElse(layout.flatBlobPath(hash));
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.StoredFile;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+// Serves stored files with conditional GET, byte ranges and zero-copy transfer. Files compressed on ingest
+// go out as their stored gzip bytes when the client accepts gzip, and are inflated on the fly otherwise
+@Service
+public class FileDownloadService {
+
+    // Tomcat NIO/NIO2 connectors hand these to sendfile(2) once the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final StorageReportService storageReportService;
+
+    public FileDownloadService(FileStorageService fileStorageService, StorageReportService storageReportService) {
+        this.fileStorageService = fileStorageService;
+        this.storageReportService = storageReportService;
+    }
+
+    public void serve(StoredFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path path = fileStorageService.getFileOnDisk(file).toPath();
+        boolean storedGzip = StorageCompression.GZIP.equals(file.getContentEncoding());
+        boolean sendGzip = storedGzip && acceptsGzip(request);
+        boolean inflate = storedGzip && !sendGzip;
+        long length = inflate ? file.getSize() : path.toFile().length();
+        // Each representation needs its own strong validator
+        String etag = sendGzip ? gzipEtag(fileStorageService.ensureEtag(file)) : fileStorageService.ensureEtag(file);
+        Instant lastModified = file.getUploadTime() != null
+                ? file.getUploadTime().truncatedTo(ChronoUnit.SECONDS) : Instant.EPOCH;
+
+        if (storedGzip) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (sendGzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, StorageCompression.GZIP);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalFilename() + "\"");
+        String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+
+        List<HttpRange> ranges = List.of();
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+                for (HttpRange range : ranges) {
+                    if (range.getRangeStart(length) >= length) {
+                        throw new IllegalArgumentException("Range starts past end of file");
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        Representation representation = new Representation(path, inflate);
+        long sent;
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            transfer(representation, 0, length, request, response);
+            sent = length;
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            transfer(representation, start, end - start + 1, request, response);
+            sent = end - start + 1;
+        } else {
+            sent = writeMultipart(representation, length, contentType, ranges, response);
+        }
+
+        // A full gzip response stands in for the whole original file; partial ones are counted as sent
+        long original = sendGzip && ranges.isEmpty() ? file.getSize() : sent;
+        storageReportService.recordEgress(sendGzip ? "gzip" : inflate ? "inflated" : "identity", sent, original);
+    }
+
+    // Stored bytes on disk, optionally inflated on the way out
+    private static final class Representation {
+        final Path path;
+        final boolean inflate;
+
+        Representation(Path path, boolean inflate) {
+            this.path = path;
+            this.inflate = inflate;
+        }
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("*")) {
+                continue;
+            }
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            if (quality > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, Instant lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 9110)
+            return etagListMatches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified.toEpochMilli() <= ifModifiedSince;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, Instant lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified.toEpochMilli() == date;
+    }
+
+    private boolean etagListMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private long writeMultipart(Representation representation, long length, String contentType, List<HttpRange> ranges,
+                                HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        long sent = 0;
+        try (FileChannel channel = FileChannel.open(representation.path, StandardOpenOption.READ)) {
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                String partHeader = "\r\n--" + boundary + "\r\n" +
+                        HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n" +
+                        HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n";
+                out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                if (representation.inflate) {
+                    copyInflated(representation.path, start, end - start + 1, out);
+                } else {
+                    transferFrom(channel, start, end - start + 1, target);
+                }
+                sent += end - start + 1;
+            }
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return sent;
+    }
+
+    private void transfer(Representation representation, long start, long length, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        Path path = representation.path;
+        if (representation.inflate) {
+            copyInflated(path, start, length, response.getOutputStream());
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector copies file pages straight to the socket: no heap buffer, no user-space copy
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transferFrom(channel, start, length, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    // Offsets refer to the original bytes, so the prefix is inflated and discarded
+    private void copyInflated(Path path, long start, long length, OutputStream out) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path), INFLATE_BUFFER_SIZE)) {
+            in.skipNBytes(start);
+            byte[] buffer = new byte[INFLATE_BUFFER_SIZE];
+            long remaining = length;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private void transferFrom(FileChannel channel, long start, long length, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long sent = channel.transferTo(position, remaining, target);
+            if (sent <= 0) {
+                break;
+            }
+            position += sent;
+            remaining -= sent;
+        }
+    }
+}
@@ -1,53 +1,128 @@
 package com.example.securefileapp.service;
 
+import com.example.securefileapp.dto.KeysetCursor;
+import com.example.securefileapp.dto.StoredFileSummary;
+import com.example.securefileapp.model.FileBlob;
 import com.example.securefileapp.model.StoredFile;
 import com.example.securefileapp.model.User;
 import com.example.securefileapp.repository.StoredFileRepository;
-import org.apache.commons.io.FilenameUtils;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
-    @Value("${file.storage.location}")
-    private String storageLocation;
-
     private final StoredFileRepository fileRepository;
+    private final FileBlobStore blobStore;
+    private final StorageLayout layout;
+    private final ShareTokenIndex shareTokenIndex;
+    private final StorageCompression compression;
 
-    public FileStorageService(StoredFileRepository fileRepository) {
+    public FileStorageService(StoredFileRepository fileRepository, FileBlobStore blobStore, StorageLayout layout,
+                              ShareTokenIndex shareTokenIndex, StorageCompression compression) {
         this.fileRepository = fileRepository;
+        this.blobStore = blobStore;
+        this.layout = layout;
+        this.shareTokenIndex = shareTokenIndex;
+        this.compression = compression;
     }
 
     public StoredFile storeFile(MultipartFile file, User owner) throws IOException {
-        String ext = FilenameUtils.getExtension(file.getOriginalFilename());
-        String filename = UUID.randomUUID() + (ext.isEmpty() ? "" : "." + ext);
-        Path dir = Paths.get(storageLocation);
-        if (!Files.exists(dir)) Files.createDirectories(dir);
-        Path filePath = dir.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
+        // Hash first with a read-only pass; identical content already on disk is never written again
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        FileBlob blob = blobStore.retainIfPresent(hash);
+        if (blob == null) {
+            // For multipart parts already spooled to disk this is a rename rather than a copy
+            Path incoming = blobStore.newIncomingFile();
+            file.transferTo(incoming);
+            blob = blobStore.adopt(incoming, hash, file.getSize(),
+                    compression.isCompressible(file.getContentType(), file.getSize()));
+        }
+        return registerStoredFile(blob, file.getOriginalFilename(), file.getContentType(), owner);
+    }
+
+    // Records a fully assembled upload, moving it into the blob store unless the content is already there
+    public StoredFile storeAssembledFile(Path assembled, String originalFilename, String contentType,
+                                         byte[] sha256, User owner) throws IOException {
+        String hash = HexFormat.of().formatHex(sha256);
+        FileBlob blob = blobStore.retainIfPresent(hash);
+        if (blob != null) {
+            // Re-upload of content already stored: drop the assembly before anything compresses it
+            Files.deleteIfExists(assembled);
+        } else {
+            long size = Files.size(assembled);
+            blob = blobStore.adopt(assembled, hash, size, compression.isCompressible(contentType, size));
+        }
+        return registerStoredFile(blob, originalFilename, contentType, owner);
+    }
+
+    private StoredFile registerStoredFile(FileBlob blob, String originalFilename, String contentType, User owner) {
         StoredFile storedFile = new StoredFile();
-        storedFile.setFilename(filename);
-        storedFile.setOriginalFilename(file.getOriginalFilename());
-        storedFile.setContentType(file.getContentType());
-        storedFile.setSize(file.getSize());
+        storedFile.setFilename(blobStore.pathOf(blob));
+        storedFile.setBlobHash(blob.getHash());
+        storedFile.setContentEncoding(blob.getEncoding());
+        storedFile.setOriginalFilename(originalFilename);
+        storedFile.setContentType(contentType);
+        storedFile.setSize(blob.getSize());
         storedFile.setUploadTime(Instant.now());
+        storedFile.setEtag(toEtag(blob.getHash()));
         storedFile.setOwner(owner);
         return fileRepository.save(storedFile);
     }
 
-    public List<StoredFile> getFilesByOwner(User owner) {
-        return fileRepository.findByOwner(owner);
+    public void deleteFile(StoredFile storedFile) throws IOException {
+        shareTokenIndex.remove(storedFile.getShareToken());
+        fileRepository.delete(storedFile);
+        if (storedFile.getBlobHash() != null) {
+            blobStore.release(storedFile.getBlobHash());
+        } else {
+            Files.deleteIfExists(getFileOnDisk(storedFile).toPath());
+        }
+    }
+
+    public List<StoredFileSummary> listFiles(User owner, KeysetCursor<Instant> cursor, String contentType, String namePrefix,
+                                             Pageable pageable) {
+        String contentTypePattern = contentTypePattern(contentType);
+        String namePattern = namePrefix == null || namePrefix.isEmpty() ? null : escapeLike(namePrefix) + "%";
+        return cursor == null
+                ? fileRepository.findListingFirstPage(owner.getId(), contentTypePattern, namePattern, pageable)
+                : fileRepository.findListingAfter(owner.getId(), cursor.getKey(), cursor.getId(),
+                        contentTypePattern, namePattern, pageable);
+    }
+
+    // "image/png" matches exactly, "image/*" or "image/" matches the whole family
+    private String contentTypePattern(String contentType) {
+        if (contentType == null || contentType.isEmpty()) {
+            return null;
+        }
+        if (contentType.endsWith("/*")) {
+            return escapeLike(contentType.substring(0, contentType.length() - 1)) + "%";
+        }
+        return contentType.endsWith("/") ? escapeLike(contentType) + "%" : escapeLike(contentType);
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     public Optional<StoredFile> getFile(Long id) {
@@ -55,20 +130,56 @@ public class FileStorageService {
     }
 
     public Optional<StoredFile> getFileByShareToken(String token) {
-        return fileRepository.findByShareToken(token);
+        return shareTokenIndex.find(token);
     }
 
+    // Pure path arithmetic: the row already carries the location, so no filesystem probing
     public File getFileOnDisk(StoredFile storedFile) {
-        return Paths.get(storageLocation, storedFile.getFilename()).toFile();
+        if (storedFile.getBlobHash() != null && storedFile.getBlobHash().equals(storedFile.getFilename())) {
+            // Rows written before the directory fan-out stored only the hash
+            return layout.resolve(layout.flatBlobPath(storedFile.getBlobHash())).toFile();
+        }
+        return layout.resolve(storedFile.getFilename()).toFile();
     }
 
     public StoredFile generateShareToken(StoredFile file, long expirySeconds) {
+        String previousToken = file.getShareToken();
         file.setShareToken(UUID.randomUUID().toString());
         file.setShareTokenExpiry(Instant.now().plusSeconds(expirySeconds));
-        return fileRepository.save(file);
+        StoredFile saved = fileRepository.save(file);
+        shareTokenIndex.remove(previousToken);
+        shareTokenIndex.put(saved);
+        return saved;
+    }
+
+    // Files stored before ETags existed get one computed on first download
+    public String ensureEtag(StoredFile file) throws IOException {
+        if (file.getEtag() == null) {
+            MessageDigest digest = newSha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(getFileOnDisk(file).toPath()), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            file.setEtag(toEtag(HexFormat.of().formatHex(digest.digest())));
+            // Targeted update: the file may be a share-index snapshot without its owner
+            fileRepository.updateEtag(file.getId(), file.getEtag());
+        }
+        return file.getEtag();
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String toEtag(String sha256Hex) {
+        return "\"" + sha256Hex + "\"";
     }
 
     public void removeShareToken(StoredFile file) {
+        shareTokenIndex.remove(file.getShareToken());
         file.setShareToken(null);
         file.setShareTokenExpiry(null);
         fileRepository.save(file);
@@ -48,10 +48,10 @@ public class LanguageDetectionService {
             
             if (detected.isReliable()) {
                 String languageCode = detected.getLocale().getLanguage();
-                log.info("Detected language: {} with confidence: {}", languageCode, detected.getProbability());
+                log.debug("Detected language: {} with confidence: {}", languageCode, detected.getProbability());
                 return languageCode;
             } else {
-                log.warn("Language detection not reliable, defaulting to English");
+                log.debug("Language detection not reliable, defaulting to English");
                 return "en";
             }
         } catch (Exception e) {
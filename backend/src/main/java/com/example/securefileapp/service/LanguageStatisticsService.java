@@ -0,0 +1,190 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.AnalysisExportFilter;
+import com.example.securefileapp.model.LanguageStatsRollup;
+import com.example.securefileapp.model.LanguageStatsRollup.Granularity;
+import com.example.securefileapp.model.NewsAnalysis;
+import com.example.securefileapp.repository.LanguageStatsRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LanguageStatisticsService {
+
+    private static final String UNKNOWN = "unknown";
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String SELECT_ANALYSES =
+        "SELECT created_at, detected_language, model_used, is_fake_news, confidence_score FROM news_analyses";
+
+    private record BucketKey(Granularity granularity, LocalDateTime bucketStart, String language, String modelUsed) {
+    }
+
+    private final LanguageStatsRollupRepository rollupRepository;
+    private final AnalysisArchiveService analysisArchiveService;
+    private final DataSource dataSource;
+
+    // The rollups only count analyses recorded since they exist. An empty rollup table is seeded once
+    // from archived segments and news_analyses; this runs before the web server takes requests, so no
+    // live analysis is counted twice
+    @PostConstruct
+    public void seedRollups() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+
+        Map<BucketKey, LanguageStatsRollup> buckets = new HashMap<>();
+        try {
+            analysisArchiveService.forEach(new AnalysisExportFilter(), analysis -> seed(buckets,
+                    analysis.getCreatedAt(), analysis.getDetectedLanguage(), analysis.getModelUsed(),
+                    analysis.getIsFakeNews(), analysis.getConfidenceScore()));
+
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setFetchSize(500);
+                try (ResultSet resultSet = statement.executeQuery(SELECT_ANALYSES)) {
+                    while (resultSet.next()) {
+                        Timestamp createdAt = resultSet.getTimestamp(1);
+                        Object fake = resultSet.getObject(4);
+                        Object confidence = resultSet.getObject(5);
+                        seed(buckets, createdAt != null ? createdAt.toLocalDateTime() : null,
+                                resultSet.getString(2), resultSet.getString(3),
+                                fake != null ? resultSet.getBoolean(4) : null,
+                                confidence != null ? ((Number) confidence).doubleValue() : null);
+                    }
+                }
+            }
+        } catch (IOException | SQLException e) {
+            log.error("Failed to seed language statistics rollups: {}", e.getMessage(), e);
+            return;
+        }
+
+        if (!buckets.isEmpty()) {
+            rollupRepository.saveAll(buckets.values());
+            log.info("Seeded {} language statistics buckets from existing analyses", buckets.size());
+        }
+    }
+
+    private void seed(Map<BucketKey, LanguageStatsRollup> buckets, LocalDateTime createdAt, String language,
+                      String modelUsed, Boolean isFakeNews, Double confidenceScore) {
+        if (createdAt == null) {
+            return;
+        }
+        String bucketLanguage = language != null ? language : UNKNOWN;
+        String bucketModel = modelUsed != null ? modelUsed : UNKNOWN;
+        double confidence = confidenceScore != null ? confidenceScore : 0.0;
+
+        for (Granularity granularity : Granularity.values()) {
+            LocalDateTime bucketStart = createdAt.truncatedTo(
+                    granularity == Granularity.HOURLY ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+            LanguageStatsRollup rollup = buckets.computeIfAbsent(
+                    new BucketKey(granularity, bucketStart, bucketLanguage, bucketModel),
+                    key -> new LanguageStatsRollup(null, granularity, bucketStart, bucketLanguage, bucketModel,
+                            0L, 0L, 0.0, 0.0));
+            rollup.setAnalysisCount(rollup.getAnalysisCount() + 1);
+            rollup.setFakeCount(rollup.getFakeCount() + (Boolean.TRUE.equals(isFakeNews) ? 1 : 0));
+            rollup.setConfidenceSum(rollup.getConfidenceSum() + confidence);
+            rollup.setConfidenceSumSquares(rollup.getConfidenceSumSquares() + confidence * confidence);
+        }
+    }
+
+    public void recordAnalysis(NewsAnalysis analysis) {
+        LocalDateTime createdAt = analysis.getCreatedAt() != null ? analysis.getCreatedAt() : LocalDateTime.now();
+        String language = analysis.getDetectedLanguage() != null ? analysis.getDetectedLanguage() : UNKNOWN;
+        String modelUsed = analysis.getModelUsed() != null ? analysis.getModelUsed() : UNKNOWN;
+        boolean fake = Boolean.TRUE.equals(analysis.getIsFakeNews());
+        double confidence = analysis.getConfidenceScore() != null ? analysis.getConfidenceScore() : 0.0;
+
+        upsert(Granularity.HOURLY, createdAt.truncatedTo(ChronoUnit.HOURS), language, modelUsed, fake, confidence);
+        upsert(Granularity.DAILY, createdAt.truncatedTo(ChronoUnit.DAYS), language, modelUsed, fake, confidence);
+    }
+
+    private void upsert(Granularity granularity, LocalDateTime bucketStart, String language,
+                        String modelUsed, boolean fake, double confidence) {
+        long fakeIncrement = fake ? 1 : 0;
+        int updated = rollupRepository.incrementBucket(granularity, bucketStart, language, modelUsed,
+                fakeIncrement, confidence, confidence * confidence);
+        if (updated > 0) {
+            return;
+        }
+
+        try {
+            rollupRepository.saveAndFlush(new LanguageStatsRollup(null, granularity, bucketStart, language,
+                    modelUsed, 1L, fakeIncrement, confidence, confidence * confidence));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer created the bucket first; fold into it
+            rollupRepository.incrementBucket(granularity, bucketStart, language, modelUsed,
+                    fakeIncrement, confidence, confidence * confidence);
+        }
+    }
+
+    public List<Map<String, Object>> getStatisticsByLanguage(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = (from != null ? from : EARLIEST).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = ceilTo(to != null ? to : LocalDateTime.now(), ChronoUnit.HOURS);
+
+        Map<String, double[]> totals = new TreeMap<>();
+        LocalDateTime firstWholeDay = ceilTo(start, ChronoUnit.DAYS);
+        LocalDateTime lastWholeDay = end.truncatedTo(ChronoUnit.DAYS);
+
+        if (firstWholeDay.isBefore(lastWholeDay)) {
+            // Whole days come from daily buckets, the ragged edges from hourly ones
+            accumulate(totals, rollupRepository.sumByLanguage(Granularity.HOURLY, start, firstWholeDay));
+            accumulate(totals, rollupRepository.sumByLanguage(Granularity.DAILY, firstWholeDay, lastWholeDay));
+            accumulate(totals, rollupRepository.sumByLanguage(Granularity.HOURLY, lastWholeDay, end));
+        } else {
+            accumulate(totals, rollupRepository.sumByLanguage(Granularity.HOURLY, start, end));
+        }
+
+        List<Map<String, Object>> statistics = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] sums = entry.getValue();
+            double count = sums[0];
+            double mean = count > 0 ? sums[2] / count : 0.0;
+            double variance = count > 0 ? Math.max(0.0, sums[3] / count - mean * mean) : 0.0;
+
+            Map<String, Object> languageStats = new LinkedHashMap<>();
+            languageStats.put("language", entry.getKey());
+            languageStats.put("totalAnalyses", (long) count);
+            languageStats.put("fakeNewsCount", (long) sums[1]);
+            languageStats.put("fakeNewsPercentage", round(count > 0 ? sums[1] / count * 100 : 0.0));
+            languageStats.put("averageConfidence", round(mean));
+            languageStats.put("confidenceStdDev", round(Math.sqrt(variance)));
+            statistics.add(languageStats);
+        }
+        return statistics;
+    }
+
+    private void accumulate(Map<String, double[]> totals, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            double[] sums = totals.computeIfAbsent((String) row[0], k -> new double[4]);
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += row[i + 1] != null ? ((Number) row[i + 1]).doubleValue() : 0.0;
+            }
+        }
+    }
+
+    private LocalDateTime ceilTo(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    private double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -15,7 +15,7 @@ public class ModelService {
     
     public PredictionResult predict(Map<String, Double> features, String language) {
         try {
-            log.info("Making prediction for language: {} with {} features", language, features.size());
+            log.debug("Making prediction for language: {} with {} features", language, features.size());
             
             // Calculate fake news probability based on features
             double fakeNewsProbability = calculateFakeNewsProbability(features, language);
@@ -31,8 +31,10 @@ public class ModelService {
             
             String modelName = getModelName(language);
             
-            log.info("Prediction result - Fake: {}, Confidence: {:.2f}, Model: {}", 
-                    isFakeNews, confidence, modelName);
+            if (log.isDebugEnabled()) {
+                log.debug("Prediction result - Fake: {}, Confidence: {}, Model: {}",
+                        isFakeNews, String.format("%.2f", confidence), modelName);
+            }
             
             return new PredictionResult(isFakeNews, confidence, modelName);
             
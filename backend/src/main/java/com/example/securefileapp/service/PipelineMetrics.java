@@ -0,0 +1,164 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.jfr.PipelineStageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Per-stage latency of the analysis pipeline as truthguard.analysis.stage timers tagged by stage,
+// language and model. A request collects its stage times in a Timings and publishes them once the
+// language and model are known, so the hot path only reads System.nanoTime. Each stage is also a
+// PipelineStageEvent for Flight Recorder
+@Component
+public class PipelineMetrics {
+
+    public static final String TIMER_NAME = "truthguard.analysis.stage";
+
+    // Language tags come partly from the client, so their cardinality is capped
+    private static final Pattern LANGUAGE_CODE = Pattern.compile("[a-z]{2,3}");
+    private static final int MAX_TAG_SETS = 64;
+    private static final String OTHER = "other";
+
+    public enum Stage {
+        LANGUAGE_DETECTION("language_detection"),
+        PREPROCESSING("preprocessing"),
+        FEATURE_EXTRACTION("feature_extraction"),
+        PREDICTION("prediction"),
+        EXPLANATION("explanation"),
+        // The analysis stages together, as reported in analysisDurationMs
+        PIPELINE("pipeline"),
+        PERSISTENCE("persistence"),
+        // The whole request: the pipeline plus persisting its result
+        TOTAL("total");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    // Stage times of one request; not thread-safe, each request owns its instance
+    public static final class Timings {
+        private final long startNanos = System.nanoTime();
+        private final long[] nanos = new long[Stage.values().length];
+        private long lastMark = startNanos;
+        private String language;
+        private PipelineStageEvent stageEvent = beginStageEvent();
+
+        // Tags the stage events from here on; the first stages run before the language is known
+        public void language(String language) {
+            this.language = language;
+        }
+
+        // Charges the time since the previous mark to stage
+        public void mark(Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - lastMark;
+            lastMark = now;
+
+            stageEvent.end();
+            if (stageEvent.shouldCommit()) {
+                stageEvent.stage = stage.tag();
+                stageEvent.language = language;
+                stageEvent.commit();
+            }
+            stageEvent = beginStageEvent();
+        }
+
+        private static PipelineStageEvent beginStageEvent() {
+            PipelineStageEvent event = new PipelineStageEvent();
+            event.begin();
+            return event;
+        }
+
+        public void add(Stage stage, long elapsedNanos) {
+            nanos[stage.ordinal()] += elapsedNanos;
+        }
+
+        public long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        public long nanos(Stage stage) {
+            return nanos[stage.ordinal()];
+        }
+
+        // Stages that ran, in pipeline order, in fractional milliseconds
+        public Map<String, Double> toMillis() {
+            Map<String, Double> millis = new LinkedHashMap<>();
+            for (Stage stage : Stage.values()) {
+                if (nanos[stage.ordinal()] > 0) {
+                    millis.put(stage.tag(), nanos[stage.ordinal()] / 1_000_000.0);
+                }
+            }
+            return millis;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timings start() {
+        return new Timings();
+    }
+
+    // Publishes every stage that ran, and the total, under one language/model pair
+    public void record(Timings timings, String language, String model) {
+        timings.add(Stage.TOTAL, timings.elapsedNanos());
+        Timer[] stageTimers = timersFor(language, model);
+        for (Stage stage : Stage.values()) {
+            long nanos = timings.nanos(stage);
+            if (nanos > 0) {
+                stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer[] timersFor(String language, String model) {
+        String languageTag = language != null && LANGUAGE_CODE.matcher(language).matches() ? language : OTHER;
+        String modelTag = model != null ? model : OTHER;
+        String key = languageTag + '|' + modelTag;
+        Timer[] existing = timers.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (timers.size() >= MAX_TAG_SETS) {
+            languageTag = OTHER;
+            key = languageTag + '|' + modelTag;
+        }
+        String finalLanguage = languageTag;
+        return timers.computeIfAbsent(key, ignored -> register(finalLanguage, modelTag));
+    }
+
+    private Timer[] register(String language, String model) {
+        Timer[] stageTimers = new Timer[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder(TIMER_NAME)
+                    .tag("stage", stage.tag())
+                    .tag("language", language)
+                    .tag("model", model)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        }
+        return stageTimers;
+    }
+}
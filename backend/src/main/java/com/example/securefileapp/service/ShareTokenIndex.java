@@ -0,0 +1,229 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.StoredFile;
+import com.example.securefileapp.repository.StoredFileRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Active share tokens held in memory, so public downloads never query the database. Expiry runs
+// through a hierarchical timer wheel and expired tokens are cleared from the table in batches
+@Component
+@Slf4j
+public class ShareTokenIndex {
+
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private static final class Entry {
+        final String token;
+        // Swapped in place by refresh so the wheel's reference stays the live entry
+        volatile StoredFile file;
+        final long expiryTick;
+
+        Entry(String token, StoredFile file, long expiryTick) {
+            this.token = token;
+            this.file = file;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    // Four levels of 64 slots: level n covers deltas below 64^(n+1) ticks. Entries are re-slotted into
+    // lower levels as their time approaches, so scheduling and expiring are both O(1)
+    static final class TimerWheel<T> {
+        private static final int SLOT_BITS = 6;
+        private static final int SLOTS = 1 << SLOT_BITS;
+        private static final int LEVELS = 4;
+
+        private final List<List<ArrayDeque<T>>> levels = new ArrayList<>(LEVELS);
+        private final ToLongFunction<T> expiryTick;
+        private long currentTick;
+
+        TimerWheel(long startTick, ToLongFunction<T> expiryTick) {
+            this.currentTick = startTick;
+            this.expiryTick = expiryTick;
+            for (int level = 0; level < LEVELS; level++) {
+                List<ArrayDeque<T>> slots = new ArrayList<>(SLOTS);
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    slots.add(new ArrayDeque<>());
+                }
+                levels.add(slots);
+            }
+        }
+
+        // Returns false if the item is already due; the caller expires it directly
+        synchronized boolean schedule(T item) {
+            return place(item);
+        }
+
+        synchronized void advanceTo(long tick, Consumer<T> expired) {
+            while (currentTick < tick) {
+                currentTick++;
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        ArrayDeque<T> slot = slotAt(level, currentTick);
+                        T item;
+                        while ((item = slot.poll()) != null) {
+                            if (!place(item)) {
+                                expired.accept(item);
+                            }
+                        }
+                    }
+                }
+                ArrayDeque<T> due = slotAt(0, currentTick);
+                T item;
+                while ((item = due.poll()) != null) {
+                    expired.accept(item);
+                }
+            }
+        }
+
+        private boolean place(T item) {
+            long expiry = expiryTick.applyAsLong(item);
+            long delta = expiry - currentTick;
+            if (delta <= 0) {
+                return false;
+            }
+            for (int level = 0; level < LEVELS; level++) {
+                if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                    slotAt(level, expiry).add(item);
+                    return true;
+                }
+            }
+            // Beyond the wheel's horizon: park in the top level's last slot and re-slot on cascade
+            int top = LEVELS - 1;
+            long parked = ((currentTick >> (SLOT_BITS * top)) + SLOTS - 1) << (SLOT_BITS * top);
+            slotAt(top, parked).add(item);
+            return true;
+        }
+
+        private ArrayDeque<T> slotAt(int level, long tick) {
+            return levels.get(level).get((int) ((tick >> (SLOT_BITS * level)) & (SLOTS - 1)));
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Files whose token expired and still need the columns cleared in the database
+    private final ConcurrentHashMap<Long, String> pendingClears = new ConcurrentHashMap<>();
+    private final StoredFileRepository fileRepository;
+    private final long tickMillis;
+    private final TimerWheel<Entry> wheel;
+
+    public ShareTokenIndex(StoredFileRepository fileRepository, MeterRegistry meterRegistry,
+                           @Value("${truthguard.share.tick-ms:1000}") long tickMillis) {
+        this.fileRepository = fileRepository;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimerWheel<>(currentTick(), entry -> entry.expiryTick);
+        Gauge.builder("truthguard.share.index.size", entries, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void warm() {
+        List<StoredFile> shared = fileRepository.findByShareTokenIsNotNull();
+        for (StoredFile file : shared) {
+            put(file);
+        }
+        log.info("Loaded {} share tokens", entries.size());
+    }
+
+    // The returned file is a detached snapshot; it carries everything a download needs
+    public Optional<StoredFile> find(String token) {
+        Entry entry = entries.get(token);
+        return entry == null ? Optional.empty() : Optional.of(entry.file);
+    }
+
+    public void put(StoredFile file) {
+        if (file.getShareToken() == null || file.getShareTokenExpiry() == null) {
+            return;
+        }
+        Entry entry = new Entry(file.getShareToken(), snapshot(file), tickOf(file.getShareTokenExpiry()));
+        entries.put(entry.token, entry);
+        if (!wheel.schedule(entry)) {
+            expire(entry);
+        }
+    }
+
+    public void remove(String token) {
+        if (token != null) {
+            entries.remove(token);
+        }
+    }
+
+    // Picks up a changed storage location for a shared file without touching its expiry
+    public void refresh(StoredFile file) {
+        if (file.getShareToken() != null) {
+            Entry entry = entries.get(file.getShareToken());
+            if (entry != null && entry.file.getId().equals(file.getId())) {
+                entry.file = snapshot(file);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${truthguard.share.tick-ms:1000}")
+    public void sweep() {
+        wheel.advanceTo(currentTick(), this::expire);
+        if (!pendingClears.isEmpty()) {
+            flushClears();
+        }
+    }
+
+    private void expire(Entry entry) {
+        // Stale wheel entries (token replaced or removed) are simply dropped
+        if (entries.remove(entry.token, entry)) {
+            pendingClears.put(entry.file.getId(), entry.token);
+        }
+    }
+
+    private void flushClears() {
+        List<Long> ids = new ArrayList<>(pendingClears.keySet());
+        Instant now = Instant.now();
+        for (int start = 0; start < ids.size(); start += UPDATE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(ids.size(), start + UPDATE_BATCH_SIZE));
+            try {
+                // Only rows whose token is still expired: a fresh share created meanwhile must survive
+                fileRepository.clearExpiredShareTokens(batch, now);
+                batch.forEach(pendingClears::remove);
+            } catch (Exception e) {
+                log.error("Failed to clear {} expired share tokens, will retry: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+
+    private long tickOf(Instant instant) {
+        // Round up so a token is never dropped before its expiry
+        return (instant.toEpochMilli() + tickMillis - 1) / tickMillis;
+    }
+
+    private StoredFile snapshot(StoredFile file) {
+        StoredFile copy = new StoredFile();
+        copy.setId(file.getId());
+        copy.setFilename(file.getFilename());
+        copy.setBlobHash(file.getBlobHash());
+        copy.setContentEncoding(file.getContentEncoding());
+        copy.setOriginalFilename(file.getOriginalFilename());
+        copy.setContentType(file.getContentType());
+        copy.setSize(file.getSize());
+        copy.setUploadTime(file.getUploadTime());
+        copy.setEtag(file.getEtag());
+        copy.setShareToken(file.getShareToken());
+        copy.setShareTokenExpiry(file.getShareTokenExpiry());
+        return copy;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.dto.NewsAnalysisRequest;
+import com.example.securefileapp.dto.NewsAnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Keeps the slowest analysis requests of each time window with their full input and stage timings,
+// so a latency spike can be replayed offline. Each window holds at most max-per-window requests in
+// a min-heap; once it is full, anything not slower than its fastest entry is turned away without
+// taking the lock
+@Component
+public class SlowRequestRecorder {
+
+    public record CapturedRequest(Instant capturedAt, double durationMs, String user, String title, String content,
+                                  String requestedLanguage, String sourceUrl, String author, String detectedLanguage,
+                                  String model, Map<String, Double> stagesMs, String error) {
+    }
+
+    public record Window(Instant start, Instant end, List<CapturedRequest> slowest) {
+    }
+
+    private static final Comparator<CapturedRequest> BY_DURATION = Comparator.comparingDouble(CapturedRequest::durationMs);
+
+    private final PriorityQueue<CapturedRequest> current = new PriorityQueue<>(BY_DURATION);
+    private final ArrayDeque<Window> completed = new ArrayDeque<>();
+    private long windowStartMillis;
+    private volatile long windowEndMillis;
+    private volatile double admissionFloorMs;
+
+    @Value("${truthguard.slow-requests.enabled:true}")
+    private boolean enabled;
+
+    @Value("${truthguard.slow-requests.max-per-window:10}")
+    private int maxPerWindow;
+
+    @Value("${truthguard.slow-requests.window-ms:300000}")
+    private long windowMs;
+
+    @Value("${truthguard.slow-requests.retained-windows:12}")
+    private int retainedWindows;
+
+    public void record(NewsAnalysisRequest request, NewsAnalysisResponse response, String username,
+                       long durationNanos, Map<String, Double> stageTimingsMs, Exception error) {
+        if (!enabled) {
+            return;
+        }
+        double durationMs = durationNanos / 1_000_000.0;
+        long now = System.currentTimeMillis();
+        if (durationMs <= admissionFloorMs && now < windowEndMillis) {
+            return;
+        }
+
+        CapturedRequest captured = new CapturedRequest(Instant.ofEpochMilli(now), durationMs, username,
+                request.getTitle(), request.getContent(), request.getLanguage(), request.getSourceUrl(),
+                request.getAuthor(),
+                response != null ? response.getDetectedLanguage() : null,
+                response != null ? response.getModelUsed() : null,
+                stageTimingsMs != null ? new LinkedHashMap<>(stageTimingsMs) : null,
+                error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null);
+
+        synchronized (current) {
+            rollWindow(now);
+            if (current.size() < maxPerWindow) {
+                current.add(captured);
+            } else if (durationMs > current.peek().durationMs()) {
+                current.poll();
+                current.add(captured);
+            }
+            admissionFloorMs = current.size() < maxPerWindow ? 0.0 : current.peek().durationMs();
+        }
+    }
+
+    // The window in progress first, then completed ones from newest to oldest; slowest request first
+    public List<Window> windows() {
+        synchronized (current) {
+            rollWindow(System.currentTimeMillis());
+            List<Window> windows = new ArrayList<>(completed.size() + 1);
+            windows.add(new Window(Instant.ofEpochMilli(windowStartMillis), Instant.ofEpochMilli(windowEndMillis),
+                    slowestFirst(current)));
+            windows.addAll(completed);
+            return windows;
+        }
+    }
+
+    public void clear() {
+        synchronized (current) {
+            current.clear();
+            completed.clear();
+            admissionFloorMs = 0.0;
+        }
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    private void rollWindow(long now) {
+        if (now < windowEndMillis) {
+            return;
+        }
+        if (windowEndMillis > 0 && !current.isEmpty()) {
+            completed.addFirst(new Window(Instant.ofEpochMilli(windowStartMillis), Instant.ofEpochMilli(windowEndMillis),
+                    slowestFirst(current)));
+            while (completed.size() > retainedWindows) {
+                completed.removeLast();
+            }
+        }
+        current.clear();
+        admissionFloorMs = 0.0;
+        // Windows are aligned to multiples of windowMs so they line up with the metrics timeline
+        windowStartMillis = now - now % windowMs;
+        windowEndMillis = windowStartMillis + windowMs;
+    }
+
+    private static List<CapturedRequest> slowestFirst(PriorityQueue<CapturedRequest> heap) {
+        List<CapturedRequest> requests = new ArrayList<>(heap);
+        requests.sort(BY_DURATION.reversed());
+        return requests;
+    }
+}
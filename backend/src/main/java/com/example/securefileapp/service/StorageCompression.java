@@ -0,0 +1,89 @@
+package com.example.securefileapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+// Compress-once policy for text-like uploads: the gzip bytes are what gets stored, and downloads
+// send them as-is to clients that accept gzip
+@Component
+@Slf4j
+public class StorageCompression {
+
+    public static final String GZIP = "gzip";
+
+    private static final String INCOMING_DIR = ".incoming";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StorageLayout layout;
+
+    @Value("${truthguard.storage.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${truthguard.storage.compression.level:6}")
+    private int level;
+
+    @Value("${truthguard.storage.compression.min-size:1024}")
+    private long minSize;
+
+    // Keep the compressed copy only if it is at most this fraction of the original
+    @Value("${truthguard.storage.compression.max-ratio:0.9}")
+    private double maxRatio;
+
+    @Value("#{'${truthguard.storage.compression.types:text/*,application/json,application/xml,application/javascript,image/svg+xml}'.split(',')}")
+    private List<String> compressibleTypes;
+
+    public StorageCompression(StorageLayout layout) {
+        this.layout = layout;
+    }
+
+    public boolean isCompressible(String contentType, long size) {
+        if (!enabled || contentType == null || size < minSize) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            String subtype = mediaType.getSubtype();
+            if (subtype.endsWith("+json") || subtype.endsWith("+xml")) {
+                return true;
+            }
+            for (String type : compressibleTypes) {
+                if (MediaType.parseMediaType(type.trim()).includes(mediaType)) {
+                    return true;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Unparseable content type {}", contentType);
+        }
+        return false;
+    }
+
+    // Returns a gzip copy of source, or null when compression does not pay off
+    public Path compress(Path source) throws IOException {
+        Path target = layout.directory(INCOMING_DIR).resolve(UUID.randomUUID() + ".gz");
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE) {
+                 {
+                     def.setLevel(level);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+
+        if (Files.size(target) > Files.size(source) * maxRatio) {
+            Files.deleteIfExists(target);
+            return null;
+        }
+        return target;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.securefileapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Where things live under file.storage.location. Blobs fan out as blobs/ab/cd/<hash> so no
+// directory grows past a few hundred entries, and directories are created once per process
+@Component
+public class StorageLayout {
+
+    private static final String BLOB_DIR = "blobs";
+
+    private final Path root;
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    public StorageLayout(@Value("${file.storage.location}") String storageLocation) {
+        this.root = Paths.get(storageLocation).toAbsolutePath().normalize();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Path resolve(String relativePath) {
+        return root.resolve(relativePath);
+    }
+
+    public String blobPath(String hash) {
+        return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    // Where blobs were written before the fan-out existed
+    public String flatBlobPath(String hash) {
+        return BLOB_DIR + "/" + hash;
+    }
+
+    public Path directory(String relativePath) throws IOException {
+        return ensureDirectory(root.resolve(relativePath));
+    }
+
+    public Path ensureDirectory(Path dir) throws IOException {
+        if (!knownDirectories.contains(dir)) {
+            Files.createDirectories(dir);
+            knownDirectories.add(dir);
+        }
+        return dir;
+    }
+
+    // Called when a cached directory turned out to be gone, e.g. removed by an operator
+    public void forgetDirectory(Path dir) {
+        knownDirectories.remove(dir);
+    }
+}
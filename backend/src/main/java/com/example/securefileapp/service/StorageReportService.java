@@ -0,0 +1,88 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.repository.FileBlobRepository;
+import com.example.securefileapp.repository.StoredFileRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// What deduplication and compress-on-ingest save on disk, and what gzip serving saves on the wire
+@Service
+public class StorageReportService {
+
+    private final FileBlobRepository blobRepository;
+    private final StoredFileRepository fileRepository;
+    private final MeterRegistry meterRegistry;
+
+    // Per response encoding (identity, gzip, inflated): bytes sent and the original bytes they stand for
+    private final Map<String, LongAdder> bytesSent = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> originalBytes = new ConcurrentHashMap<>();
+
+    public StorageReportService(FileBlobRepository blobRepository, StoredFileRepository fileRepository,
+                                MeterRegistry meterRegistry) {
+        this.blobRepository = blobRepository;
+        this.fileRepository = fileRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordEgress(String encoding, long sent, long original) {
+        adder(bytesSent, "truthguard.download.bytes", encoding).add(sent);
+        adder(originalBytes, "truthguard.download.original.bytes", encoding).add(original);
+    }
+
+    public Map<String, Object> report() {
+        Object[] blobs = blobRepository.summarize().get(0);
+        Object[] files = fileRepository.summarize().get(0);
+        long blobCount = ((Number) blobs[0]).longValue();
+        long uniqueBytes = ((Number) blobs[1]).longValue();
+        long storedBytes = ((Number) blobs[2]).longValue();
+        long compressedBlobs = ((Number) blobs[3]).longValue();
+        long fileCount = ((Number) files[0]).longValue();
+        long logicalBytes = ((Number) files[1]).longValue();
+
+        Map<String, Object> storage = new LinkedHashMap<>();
+        storage.put("files", fileCount);
+        storage.put("blobs", blobCount);
+        storage.put("compressedBlobs", compressedBlobs);
+        storage.put("logicalBytes", logicalBytes);
+        storage.put("uniqueBytes", uniqueBytes);
+        storage.put("storedBytes", storedBytes);
+        // Files not yet migrated into blobs count as logical bytes only, so clamp at zero
+        storage.put("dedupSavedBytes", Math.max(0, logicalBytes - uniqueBytes));
+        storage.put("compressionSavedBytes", uniqueBytes - storedBytes);
+
+        Map<String, Object> egress = new LinkedHashMap<>();
+        long totalSent = 0;
+        long totalOriginal = 0;
+        for (Map.Entry<String, LongAdder> entry : bytesSent.entrySet()) {
+            long sent = entry.getValue().sum();
+            LongAdder originalAdder = originalBytes.get(entry.getKey());
+            long original = originalAdder == null ? sent : originalAdder.sum();
+            egress.put(entry.getKey(), Map.of("bytesSent", sent, "originalBytes", original));
+            totalSent += sent;
+            totalOriginal += original;
+        }
+        egress.put("bytesSent", totalSent);
+        egress.put("savedBytes", totalOriginal - totalSent);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("storage", storage);
+        report.put("egress", egress);
+        return report;
+    }
+
+    private LongAdder adder(Map<String, LongAdder> adders, String meterName, String encoding) {
+        return adders.computeIfAbsent(encoding, key -> {
+            LongAdder adder = new LongAdder();
+            FunctionCounter.builder(meterName, adder, LongAdder::sum)
+                    .tag("encoding", key)
+                    .register(meterRegistry);
+            return adder;
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.securefileapp.service;
+
+import com.example.securefileapp.model.User;
+import com.example.securefileapp.repository.UserRepository;
+import com.example.securefileapp.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Identity lookups for authenticated requests; only misses and expired entries reach the users table
+@Service
+@Slf4j
+public class UserCacheService {
+
+    private static class CachedUser {
+        private final User user;
+        private final long expiresAtMillis;
+
+        CachedUser(User user, long expiresAtMillis) {
+            this.user = user;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final VerifiedTokenCache tokenCache;
+
+    private final ConcurrentHashMap<String, CachedUser> byUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> usernameById = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    @Value("${truthguard.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${truthguard.user-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    public UserCacheService(UserRepository userRepository, @Lazy VerifiedTokenCache tokenCache,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.tokenCache = tokenCache;
+        FunctionCounter.builder("truthguard.user.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("truthguard.user.cache.loads", loads, LongAdder::sum)
+                .description("users table lookups caused by cache misses")
+                .register(meterRegistry);
+        Gauge.builder("truthguard.user.cache.size", byUsername, Map::size).register(meterRegistry);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        CachedUser cached = byUsername.get(username);
+        if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.of(cached.user);
+        }
+
+        loads.increment();
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findById(Long id) {
+        String username = usernameById.get(id);
+        if (username != null) {
+            CachedUser cached = byUsername.get(username);
+            if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+                hits.increment();
+                return Optional.of(cached.user);
+            }
+        }
+
+        loads.increment();
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    // Called on password, role or profile changes; also drops the user's verified tokens
+    public void invalidate(User user) {
+        if (user.getUsername() != null) {
+            byUsername.remove(user.getUsername());
+            tokenCache.evictUser(user.getUsername());
+        }
+        if (user.getId() != null) {
+            String previousUsername = usernameById.remove(user.getId());
+            // Username itself may have changed
+            if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+                byUsername.remove(previousUsername);
+                tokenCache.evictUser(previousUsername);
+            }
+        }
+    }
+
+    private void put(User user) {
+        if (byUsername.size() >= maxEntries) {
+            evict(Math.max(1, maxEntries / 10));
+        }
+        byUsername.put(user.getUsername(), new CachedUser(user, System.currentTimeMillis() + ttlMs));
+        usernameById.put(user.getId(), user.getUsername());
+    }
+
+    private void evict(int count) {
+        long now = System.currentTimeMillis();
+        byUsername.values().removeIf(cached -> cached.expiresAtMillis <= now);
+
+        Iterator<Map.Entry<String, CachedUser>> iterator = byUsername.entrySet().iterator();
+        while (byUsername.size() >= maxEntries && count-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        usernameById.values().removeIf(username -> !byUsername.containsKey(username));
+    }
+}
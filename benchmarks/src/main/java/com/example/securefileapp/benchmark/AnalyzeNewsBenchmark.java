@@ -0,0 +1,30 @@
+package com.example.securefileapp.benchmark;
+
+import com.example.securefileapp.dto.NewsAnalysisResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnalyzeNewsBenchmark {
+
+    @Benchmark
+    public NewsAnalysisResponse analyzeNews(PipelineState state) {
+        return state.fakeNewsDetectionService.analyzeNews(state.requests[state.next()]);
+    }
+
+    @Benchmark
+    public NewsAnalysisResponse analyzeNewsDetectingLanguage(PipelineState state) {
+        return state.fakeNewsDetectionService.analyzeNews(state.unlabeledRequests[state.next()]);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.securefileapp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH JSON result files (-rf json) benchmark by benchmark, on score and on normalized
+// allocation from -prof gc. Exits with status 1 when any score regresses by more than the threshold:
+//   java -cp target/benchmarks.jar com.example.securefileapp.benchmark.BaselineDiff baseline.json current.json [percent]
+public final class BaselineDiff {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private record Result(double score, double error, String unit, Double allocBytes) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineDiff <baseline.json> <current.json> [regression-threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(Paths.get(args[0]));
+        Map<String, Result> current = read(Paths.get(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s %12s %12s %9s%n",
+                "Benchmark", "Baseline", "Current", "Score", "Base B/op", "Curr B/op", "Alloc");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.score(), "new");
+                continue;
+            }
+            double scoreChange = change(before.score(), now.score());
+            // Average-time scores regress upwards, throughput scores downwards
+            boolean lowerIsBetter = now.unit().contains("/op");
+            boolean regressed = lowerIsBetter ? scoreChange > threshold : scoreChange < -threshold;
+            // Differences inside the combined error margins are noise, not regressions
+            if (Math.abs(now.score() - before.score()) <= now.error() + before.error()) {
+                regressed = false;
+            }
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %12s %12s %9s%s%n", entry.getKey(),
+                    before.score(), now.score(), scoreChange,
+                    bytes(before.allocBytes()), bytes(now.allocBytes()), allocChange(before, now),
+                    regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", key, baseline.get(key).score(), "-", "removed");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            JsonNode primary = run.path("primaryMetric");
+            Double allocBytes = null;
+            Iterator<Map.Entry<String, JsonNode>> secondary = run.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                // Older JMH versions prefix profiler metrics with a middle dot
+                if (metric.getKey().replace("\u00b7", "").equals(ALLOC_METRIC)) {
+                    allocBytes = metric.getValue().path("score").asDouble();
+                }
+            }
+            results.put(key(run), new Result(primary.path("score").asDouble(),
+                    primary.path("scoreError").asDouble(0.0), primary.path("scoreUnit").asText(), allocBytes));
+        }
+        return results;
+    }
+
+    private static String key(JsonNode run) {
+        StringBuilder key = new StringBuilder(run.path("benchmark").asText()
+                .replace("com.example.securefileapp.benchmark.", ""));
+        JsonNode params = run.path("params");
+        if (!params.isMissingNode()) {
+            key.append(' ');
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(param.getKey()).append('=').append(param.getValue().asText());
+                if (fields.hasNext()) {
+                    key.append(',');
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before * 100;
+    }
+
+    private static String bytes(Double value) {
+        return value == null ? "-" : String.format("%.0f", value);
+    }
+
+    private static String allocChange(Result before, Result now) {
+        if (before.allocBytes() == null || now.allocBytes() == null) {
+            return "-";
+        }
+        return String.format("%+.1f%%", change(before.allocBytes(), now.allocBytes()));
+    }
+}
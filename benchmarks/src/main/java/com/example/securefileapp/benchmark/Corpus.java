@@ -0,0 +1,147 @@
+package com.example.securefileapp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Benchmark articles built from the repository's own text: the multilingual samples in
+// sample-requests.json and the English request bodies in requests.jsonl. Articles of a given length
+// are stitched together from the texts of one language, each starting at a different text so the
+// inputs vary between invocations. The load generator replays the texts as they are
+public final class Corpus {
+
+    public static final String DIR_PROPERTY = "truthguard.corpus.dir";
+
+    private static final String SAMPLES_FILE = "sample-requests.json";
+    private static final String REQUESTS_FILE = "requests.jsonl";
+
+    public record Article(String title, String content, String language) {
+    }
+
+    // declaredLanguage is null for texts that carry none, such as the request bodies
+    private record Text(String title, String body, String declaredLanguage) {
+    }
+
+    private static volatile Corpus instance;
+
+    private final Map<String, List<Text>> textsByLanguage;
+
+    private Corpus(Map<String, List<Text>> textsByLanguage) {
+        this.textsByLanguage = textsByLanguage;
+    }
+
+    public static Corpus load() {
+        if (instance == null) {
+            synchronized (Corpus.class) {
+                if (instance == null) {
+                    instance = read(locateDirectory());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public List<Article> articles(String language, int length, int count) {
+        List<Text> texts = textsByLanguage.get(language);
+        if (texts == null || texts.isEmpty()) {
+            throw new IllegalArgumentException("No corpus text for language " + language
+                    + "; available: " + textsByLanguage.keySet());
+        }
+
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder content = new StringBuilder(length + 64);
+            int next = i;
+            while (content.length() < length) {
+                if (content.length() > 0) {
+                    content.append(next % 3 == 0 ? "\n\n" : " ");
+                }
+                content.append(texts.get(next % texts.size()).body());
+                next++;
+            }
+            articles.add(new Article(texts.get(i % texts.size()).title(), cut(content, length), language));
+        }
+        return articles;
+    }
+
+    // Every text as it appears in the source files, with the language only where one was declared
+    public List<Article> originals() {
+        List<Article> articles = new ArrayList<>();
+        for (List<Text> texts : textsByLanguage.values()) {
+            for (Text text : texts) {
+                articles.add(new Article(text.title(), text.body(), text.declaredLanguage()));
+            }
+        }
+        return articles;
+    }
+
+    // Cuts at the last whitespace before length so the article does not end mid-word
+    private static String cut(StringBuilder content, int length) {
+        int end = length;
+        for (int i = length - 1; i > length * 9 / 10; i--) {
+            if (Character.isWhitespace(content.charAt(i))) {
+                end = i;
+                break;
+            }
+        }
+        return content.substring(0, end);
+    }
+
+    private static Corpus read(Path dir) {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, List<Text>> texts = new HashMap<>();
+        try {
+            JsonNode samples = mapper.readTree(dir.resolve(SAMPLES_FILE).toFile());
+            for (JsonNode sample : samples.path("sample_requests")) {
+                JsonNode request = sample.path("request");
+                String language = request.path("language").asText("en");
+                texts.computeIfAbsent(language, key -> new ArrayList<>())
+                        .add(new Text(request.path("title").asText(), request.path("content").asText(), language));
+            }
+
+            // The backlog is not always checked out next to the samples; English still has the samples
+            Path requests = dir.resolve(REQUESTS_FILE);
+            if (Files.exists(requests)) {
+                try (BufferedReader reader = Files.newBufferedReader(requests, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        JsonNode request = mapper.readTree(line);
+                        texts.computeIfAbsent("en", key -> new ArrayList<>())
+                                .add(new Text(request.path("title").asText(), request.path("body").asText(), null));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark corpus from " + dir, e);
+        }
+        return new Corpus(texts);
+    }
+
+    private static Path locateDirectory() {
+        String configured = System.getProperty(DIR_PROPERTY);
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        // Walk up from the working directory, so running from benchmarks/ or the repository root both work
+        for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+            if (Files.exists(dir.resolve(SAMPLES_FILE))) {
+                return dir;
+            }
+        }
+        throw new IllegalStateException(SAMPLES_FILE + " not found; set -D" + DIR_PROPERTY + "=<repository root>");
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.securefileapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FeatureExtractionBenchmark {
+
+    @Benchmark
+    public Map<String, Double> extractFeatures(PipelineState state) {
+        int index = state.next();
+        return state.fakeNewsDetectionService.extractFeatures(state.preprocessedTitles[index],
+                state.preprocessedContents[index], state.language);
+    }
+}
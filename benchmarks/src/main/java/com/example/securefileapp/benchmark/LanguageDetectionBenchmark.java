@@ -0,0 +1,27 @@
+package com.example.securefileapp.benchmark;
+
+import com.example.securefileapp.dto.NewsAnalysisRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LanguageDetectionBenchmark {
+
+    // Same input analyzeNews hands to the detector
+    @Benchmark
+    public String detectLanguage(PipelineState state) {
+        NewsAnalysisRequest request = state.requests[state.next()];
+        return state.languageDetectionService.detectLanguage(request.getTitle() + " " + request.getContent());
+    }
+}
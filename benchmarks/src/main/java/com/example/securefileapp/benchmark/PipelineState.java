@@ -0,0 +1,79 @@
+package com.example.securefileapp.benchmark;
+
+import com.example.securefileapp.dto.NewsAnalysisRequest;
+import com.example.securefileapp.service.FakeNewsDetectionService;
+import com.example.securefileapp.service.LanguageDetectionService;
+import com.example.securefileapp.service.ModelService;
+import com.example.securefileapp.service.PipelineMetrics;
+import com.example.securefileapp.service.TextPreprocessingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+
+// The pipeline services wired by hand, plus the inputs each stage sees in production: raw articles,
+// their preprocessed text and the extracted features. Inputs rotate per invocation
+@State(Scope.Thread)
+public class PipelineState {
+
+    private static final int ARTICLE_COUNT = 16;
+
+    @Param({"en", "hi", "es"})
+    public String language;
+
+    // Content length in characters; 10000 is the request limit
+    @Param({"300", "2000", "10000"})
+    public int length;
+
+    public LanguageDetectionService languageDetectionService;
+    public TextPreprocessingService textPreprocessingService;
+    public ModelService modelService;
+    public FakeNewsDetectionService fakeNewsDetectionService;
+
+    public NewsAnalysisRequest[] requests;
+    // Same articles without a language, so analyzeNews runs detection too
+    public NewsAnalysisRequest[] unlabeledRequests;
+    public String[] preprocessedTitles;
+    public String[] preprocessedContents;
+    public Map<String, Double>[] features;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        languageDetectionService = new LanguageDetectionService();
+        textPreprocessingService = new TextPreprocessingService();
+        modelService = new ModelService();
+        fakeNewsDetectionService = new FakeNewsDetectionService(languageDetectionService,
+                textPreprocessingService, modelService, new PipelineMetrics(new SimpleMeterRegistry()));
+
+        List<Corpus.Article> articles = Corpus.load().articles(language, length, ARTICLE_COUNT);
+        requests = new NewsAnalysisRequest[articles.size()];
+        unlabeledRequests = new NewsAnalysisRequest[articles.size()];
+        preprocessedTitles = new String[articles.size()];
+        preprocessedContents = new String[articles.size()];
+        features = new Map[articles.size()];
+        for (int i = 0; i < articles.size(); i++) {
+            Corpus.Article article = articles.get(i);
+            requests[i] = new NewsAnalysisRequest(article.title(), article.content(), null, null, language);
+            unlabeledRequests[i] = new NewsAnalysisRequest(article.title(), article.content(), null, null, null);
+            preprocessedTitles[i] = textPreprocessingService.preprocessText(article.title(), language);
+            preprocessedContents[i] = textPreprocessingService.preprocessText(article.content(), language);
+            features[i] = fakeNewsDetectionService.extractFeatures(preprocessedTitles[i], preprocessedContents[i],
+                    language);
+        }
+    }
+
+    // Index of the input for this invocation
+    public int next() {
+        int index = next;
+        next = index + 1 == requests.length ? 0 : index + 1;
+        return index;
+    }
+}
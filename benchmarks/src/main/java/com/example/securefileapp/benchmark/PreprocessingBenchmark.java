@@ -0,0 +1,29 @@
+package com.example.securefileapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PreprocessingBenchmark {
+
+    @Benchmark
+    public String preprocessContent(PipelineState state) {
+        return state.textPreprocessingService.preprocessText(state.requests[state.next()].getContent(), state.language);
+    }
+
+    @Benchmark
+    public String preprocessTitle(PipelineState state) {
+        return state.textPreprocessingService.preprocessText(state.requests[state.next()].getTitle(), state.language);
+    }
+}
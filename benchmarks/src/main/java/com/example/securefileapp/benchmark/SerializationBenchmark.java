@@ -0,0 +1,74 @@
+package com.example.securefileapp.benchmark;
+
+import com.example.securefileapp.dto.NewsAnalysisResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of writing an analyze response in each wire format and view, with mappers configured the way
+// the backend builds its message converters. Encoded sizes are printed once per trial
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Encoding {
+
+        @Param({"json", "cbor", "smile"})
+        public String format;
+
+        @Param({"full", "compact"})
+        public String view;
+
+        ObjectWriter writer;
+        NewsAnalysisResponse[] responses;
+
+        @Setup(Level.Trial)
+        public void setUp(PipelineState pipeline) throws JsonProcessingException {
+            Jackson2ObjectMapperBuilder builder = switch (format) {
+                case "json" -> Jackson2ObjectMapperBuilder.json();
+                case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+                case "smile" -> Jackson2ObjectMapperBuilder.smile();
+                default -> throw new IllegalArgumentException("Unknown format " + format);
+            };
+            // Spring Boot writes dates as ISO strings
+            ObjectMapper mapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            writer = "compact".equals(view) ? mapper.writerWithView(NewsAnalysisResponse.Compact.class) : mapper.writer();
+
+            responses = new NewsAnalysisResponse[pipeline.requests.length];
+            long bytes = 0;
+            for (int i = 0; i < responses.length; i++) {
+                responses[i] = pipeline.fakeNewsDetectionService.analyzeNews(pipeline.requests[i]);
+                // Timings are opt-in per request, so the default response goes without them
+                responses[i].setStageTimingsMs(null);
+                bytes += writer.writeValueAsBytes(responses[i]).length;
+            }
+            System.out.printf("%n%s/%s, %s content of %d chars: %d bytes per response on average%n",
+                    format, view, pipeline.language, pipeline.length, bytes / responses.length);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(PipelineState pipeline, Encoding encoding) throws JsonProcessingException {
+        return encoding.writer.writeValueAsBytes(encoding.responses[pipeline.next()]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.securefileapp.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and outcome counts for one endpoint. Response time runs from the moment the request was
+// due under the arrival schedule, so time spent queued behind a slow server is counted (the
+// coordinated-omission correction); service time runs from the moment it was actually sent
+final class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    final String name;
+    private final Recorder responseTime = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder serviceTime = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long intendedNanos, long sentNanos, long doneNanos, int status, Throwable error) {
+        responseTime.recordValue(clamp((doneNanos - intendedNanos) / 1_000));
+        serviceTime.recordValue(clamp((doneNanos - sentNanos) / 1_000));
+        completed.increment();
+        String outcome = error != null ? error.getClass().getSimpleName() : Integer.toString(status);
+        if (error != null || status >= 400) {
+            errors.increment();
+        }
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    Histogram responseTimes() {
+        return responseTime.getIntervalHistogram();
+    }
+
+    Histogram serviceTimes() {
+        return serviceTime.getIntervalHistogram();
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    Map<String, Long> outcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+
+    private static long clamp(long micros) {
+        return Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.securefileapp.benchmark.load;
+
+import com.example.securefileapp.SecureFileAppApplication;
+import com.example.securefileapp.benchmark.Corpus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+// Open-loop load test: requests go out on a fixed arrival schedule whether or not earlier ones have
+// returned, and each latency is measured from its scheduled time, so a stalled server shows up in
+// the percentiles instead of silently lowering the offered load. Runs against --target or, by
+// default, a backend started in this JVM on a random port:
+//   mvn -f benchmarks/pom.xml compile exec:java -Dexec.mainClass=com.example.securefileapp.benchmark.load.LoadGenerator \
+//       -Dexec.args="--rate=50 --duration=60 --endpoints=analyze,detect"
+public final class LoadGenerator {
+
+    private static final List<String> ENDPOINTS = List.of("analyze", "detect", "files-list", "files-download");
+    private static final int UPLOADED_FILES = 20;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private record Options(URI target, double rate, Duration warmup, Duration duration, List<String> endpoints,
+                           int maxInFlight, Duration timeout, String username, String password, Path report,
+                           List<String> serverArgs) {
+    }
+
+    private record Endpoint(EndpointStats stats, LongFunction<HttpRequest> requests) {
+    }
+
+    private final Options options;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+    private URI base;
+    private String token;
+
+    private LoadGenerator(Options options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = parse(args);
+        LoadGenerator generator = new LoadGenerator(options);
+        ConfigurableApplicationContext server = null;
+        try {
+            if (options.target() != null) {
+                generator.base = options.target();
+            } else {
+                server = startEmbedded(options.serverArgs());
+                int port = ((WebServerApplicationContext) server).getWebServer().getPort();
+                generator.base = URI.create("http://localhost:" + port);
+            }
+            generator.authenticate();
+            List<Endpoint> endpoints = generator.prepare();
+            long measuredNanos = generator.run(endpoints);
+            generator.report(endpoints, measuredNanos);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(List<String> serverArgs) throws IOException {
+        Path storage = Files.createTempDirectory("truthguard-load");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                // Measure the service, not the throttle
+                "--truthguard.rate-limit.enabled=false",
+                "--file.storage.location=" + storage,
+                "--truthguard.retention.archive-location=" + storage.resolve("archive")));
+        args.addAll(serverArgs);
+        return SpringApplication.run(SecureFileAppApplication.class, args.toArray(String[]::new));
+    }
+
+    private void authenticate() throws IOException, InterruptedException {
+        Map<String, String> credentials = new LinkedHashMap<>();
+        String path;
+        if (options.username() != null) {
+            credentials.put("username", options.username());
+            credentials.put("password", options.password());
+            path = "/api/auth/login";
+        } else {
+            String username = "loadtest-" + System.currentTimeMillis();
+            credentials.put("username", username);
+            credentials.put("email", username + "@example.com");
+            credentials.put("password", UUID.randomUUID().toString());
+            path = "/api/auth/register";
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve(path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(credentials)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Authentication failed with " + response.statusCode() + ": " + response.body());
+        }
+        token = mapper.readTree(response.body()).path("token").asText();
+    }
+
+    // Request bodies are serialized up front so the generator's own JSON work stays out of the loop
+    private List<Endpoint> prepare() throws IOException, InterruptedException {
+        List<Corpus.Article> articles = Corpus.load().originals();
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String name : options.endpoints()) {
+            EndpointStats stats = new EndpointStats(name);
+            switch (name) {
+                case "analyze" -> {
+                    List<byte[]> bodies = new ArrayList<>();
+                    for (Corpus.Article article : articles) {
+                        Map<String, String> body = new LinkedHashMap<>();
+                        body.put("title", article.title());
+                        body.put("content", article.content());
+                        if (article.language() != null) {
+                            body.put("language", article.language());
+                        }
+                        bodies.add(mapper.writeValueAsBytes(body));
+                    }
+                    endpoints.add(new Endpoint(stats, sequence -> post("/api/news/analyze", pick(bodies, sequence))));
+                }
+                case "detect" -> {
+                    List<byte[]> bodies = new ArrayList<>();
+                    for (Corpus.Article article : articles) {
+                        bodies.add(mapper.writeValueAsBytes(Map.of("text", article.content())));
+                    }
+                    endpoints.add(new Endpoint(stats, sequence -> post("/api/languages/detect", pick(bodies, sequence))));
+                }
+                case "files-list" -> endpoints.add(new Endpoint(stats, sequence -> get("/api/files?size=50")));
+                case "files-download" -> {
+                    List<Long> ids = upload(articles);
+                    endpoints.add(new Endpoint(stats, sequence -> get("/api/files/download/" + pick(ids, sequence))));
+                }
+                default -> throw new IllegalArgumentException("Unknown endpoint " + name + "; choose from " + ENDPOINTS);
+            }
+        }
+        return endpoints;
+    }
+
+    private List<Long> upload(List<Corpus.Article> articles) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(UPLOADED_FILES, articles.size()); i++) {
+            String boundary = "----truthguard-load-" + UUID.randomUUID();
+            String body = "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"article-" + i + ".txt\"\r\n"
+                    + "Content-Type: text/plain; charset=UTF-8\r\n\r\n"
+                    + articles.get(i).title() + "\n\n" + articles.get(i).content() + "\r\n"
+                    + "--" + boundary + "--\r\n";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/api/files/upload"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                            .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Upload failed with " + response.statusCode() + ": " + response.body());
+            }
+            ids.add(mapper.readTree(response.body()).path("id").asLong());
+        }
+        return ids;
+    }
+
+    // Returns the length of the measured window in nanoseconds
+    private long run(List<Endpoint> endpoints) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureStart = start + options.warmup().toNanos();
+        long end = measureStart + options.duration().toNanos();
+
+        System.out.printf("Offering %.1f requests/s to %s for %ds after %ds warmup%n", options.rate(),
+                base, options.duration().toSeconds(), options.warmup().toSeconds());
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = endpoints.get((int) (sequence % endpoints.size()));
+            HttpRequest request = endpoint.requests().apply(sequence / endpoints.size());
+            // Blocking here delays the send but not the scheduled time latency is measured from
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long done = System.nanoTime();
+                inFlight.release();
+                if (intended >= measureStart) {
+                    endpoint.stats().record(intended, sent, done,
+                            response != null ? response.statusCode() : 0, error);
+                }
+            });
+        }
+
+        long drainMillis = options.timeout().toMillis() + 5_000;
+        if (!inFlight.tryAcquire(options.maxInFlight(), drainMillis, TimeUnit.MILLISECONDS)) {
+            System.out.println("Some requests were still in flight after " + drainMillis + " ms; they are not counted");
+        }
+        return end - measureStart;
+    }
+
+    private void report(List<Endpoint> endpoints, long measuredNanos) throws IOException {
+        double seconds = measuredNanos / 1e9;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        System.out.printf("%n%-16s %9s %7s %7s %9s %9s %9s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests",
+                "Errors", "Error%", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p50", "svc p99");
+        for (Endpoint endpoint : endpoints) {
+            EndpointStats stats = endpoint.stats();
+            Histogram response = stats.responseTimes();
+            Histogram service = stats.serviceTimes();
+            long completed = stats.completed();
+            double errorRate = completed > 0 ? stats.errors() * 100.0 / completed : 0.0;
+
+            System.out.printf("%-16s %9d %7d %6.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stats.name, completed, stats.errors(), errorRate, completed / seconds,
+                    millis(response, 50.0), millis(response, 90.0), millis(response, 99.0), millis(response, 99.9),
+                    response.getMaxValue() / 1000.0, millis(service, 50.0), millis(service, 99.0));
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", stats.name);
+            row.put("requests", completed);
+            row.put("errors", stats.errors());
+            row.put("errorRatePercent", errorRate);
+            row.put("throughputPerSecond", completed / seconds);
+            row.put("responseTimeMs", percentiles(response));
+            row.put("serviceTimeMs", percentiles(service));
+            row.put("outcomes", stats.outcomes());
+            rows.add(row);
+        }
+
+        if (options.report() != null) {
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("target", base.toString());
+            document.put("offeredRatePerSecond", options.rate());
+            document.put("durationSeconds", seconds);
+            document.put("endpoints", rows);
+            mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), document);
+            System.out.println("Report written to " + options.report());
+        }
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            values.put("p" + (percentile == Math.floor(percentile) ? Long.toString((long) percentile)
+                    : Double.toString(percentile)), millis(histogram, percentile));
+        }
+        values.put("max", histogram.getMaxValue() / 1000.0);
+        values.put("mean", histogram.getMean() / 1000.0);
+        return values;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(options.timeout())
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(options.timeout())
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private static <T> T pick(List<T> values, long sequence) {
+        return values.get((int) (sequence % values.size()));
+    }
+
+    // --name=value options; anything unrecognized is handed to the embedded server as a property
+    private static Options parse(String[] args) {
+        URI target = null;
+        double rate = 20;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        List<String> endpoints = ENDPOINTS;
+        int maxInFlight = 1000;
+        Duration timeout = Duration.ofSeconds(30);
+        String username = null;
+        String password = null;
+        Path report = null;
+        List<String> serverArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "target" -> target = URI.create(value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "endpoints" -> endpoints = Arrays.asList(value.split(","));
+                case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "timeout" -> timeout = Duration.ofSeconds(Long.parseLong(value));
+                case "username" -> username = value;
+                case "password" -> password = value;
+                case "report" -> report = Paths.get(value);
+                default -> serverArgs.add(arg);
+            }
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+        if (target != null && !serverArgs.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + serverArgs);
+        }
+        if (username != null && password == null) {
+            throw new IllegalArgumentException("--username needs --password");
+        }
+        return new Options(target, rate, warmup, duration, endpoints, maxInFlight, timeout, username, password,
+                report, serverArgs);
+    }
+}
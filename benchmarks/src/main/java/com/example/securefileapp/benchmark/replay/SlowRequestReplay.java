@@ -0,0 +1,165 @@
+package com.example.securefileapp.benchmark.replay;
+
+import com.example.securefileapp.dto.NewsAnalysisRequest;
+import com.example.securefileapp.dto.NewsAnalysisResponse;
+import com.example.securefileapp.service.FakeNewsDetectionService;
+import com.example.securefileapp.service.LanguageDetectionService;
+import com.example.securefileapp.service.ModelService;
+import com.example.securefileapp.service.PipelineMetrics;
+import com.example.securefileapp.service.TextPreprocessingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Re-runs requests captured by /actuator/slowrequests through the detection pipeline in this JVM,
+// so a spike can be reproduced under a profiler without the server around it. The database save is
+// not replayed. Save the endpoint output and attach a profiler to the replay, e.g.
+//   curl -H "Authorization: Bearer $ADMIN_TOKEN" http://localhost:8080/actuator/slowrequests > slow.json
+//   MAVEN_OPTS="-XX:StartFlightRecording:settings=profile,settings=backend/jfr/truthguard.jfc,filename=replay.jfr" \
+//       mvn -f benchmarks/pom.xml compile exec:java \
+//       -Dexec.mainClass=com.example.securefileapp.benchmark.replay.SlowRequestReplay -Dexec.args="slow.json --iterations=200"
+public final class SlowRequestReplay {
+
+    private record Captured(double originalMs, Map<String, Double> originalStages, String error,
+                            NewsAnalysisRequest request) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SlowRequestReplay <slowrequests.json> [--iterations=N] [--warmup=N] [--index=I]");
+            System.exit(2);
+        }
+        int iterations = 50;
+        int warmup = 20;
+        Integer only = null;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(value);
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(value);
+            } else if (arg.startsWith("--index=")) {
+                only = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        List<Captured> captured = read(new ObjectMapper().readTree(Paths.get(args[0]).toFile()));
+        if (only != null) {
+            captured = List.of(captured.get(only));
+        }
+        if (captured.isEmpty()) {
+            System.out.println("No captured requests in " + args[0]);
+            return;
+        }
+
+        LanguageDetectionService languageDetectionService = new LanguageDetectionService();
+        TextPreprocessingService textPreprocessingService = new TextPreprocessingService();
+        ModelService modelService = new ModelService();
+        FakeNewsDetectionService pipeline = new FakeNewsDetectionService(languageDetectionService,
+                textPreprocessingService, modelService, new PipelineMetrics(new SimpleMeterRegistry()));
+
+        // Warm the JIT on the whole set first so the replayed numbers are steady-state. Captures that
+        // failed in production are expected to fail here too
+        for (int i = 0; i < warmup; i++) {
+            for (Captured request : captured) {
+                try {
+                    pipeline.analyzeNews(request.request());
+                } catch (RuntimeException e) {
+                    // Reported per capture below
+                }
+            }
+        }
+
+        System.out.printf("Replaying %d captured requests, %d iterations each%n%n", captured.size(), iterations);
+        for (int index = 0; index < captured.size(); index++) {
+            Captured request = captured.get(index);
+            Map<String, Double> stageTotals = new LinkedHashMap<>();
+            double worst = 0;
+            int succeeded = 0;
+            int failed = 0;
+            double failureMs = 0;
+            String failureMessage = null;
+            for (int i = 0; i < iterations; i++) {
+                long startNanos = System.nanoTime();
+                NewsAnalysisResponse response;
+                try {
+                    response = pipeline.analyzeNews(request.request());
+                } catch (RuntimeException e) {
+                    failed++;
+                    failureMs += (System.nanoTime() - startNanos) / 1_000_000.0;
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    failureMessage = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                    continue;
+                }
+                succeeded++;
+                double total = 0;
+                for (Map.Entry<String, Double> stage : response.getStageTimingsMs().entrySet()) {
+                    stageTotals.merge(stage.getKey(), stage.getValue(), Double::sum);
+                    if (stage.getKey().equals(PipelineMetrics.Stage.PIPELINE.tag())) {
+                        total = stage.getValue();
+                    }
+                }
+                worst = Math.max(worst, total);
+            }
+
+            String content = request.request().getContent();
+            System.out.printf("#%d  %d chars, language %s: captured %.2f ms%s%n",
+                    index, content != null ? content.length() : 0, request.request().getLanguage(),
+                    request.originalMs(), request.error() != null ? " (failed: " + request.error() + ")" : "");
+            if (failed > 0) {
+                System.out.printf("    %d of %d replays failed after %.3f ms on average: %s%n",
+                        failed, iterations, failureMs / failed, failureMessage);
+            }
+            if (succeeded == 0) {
+                continue;
+            }
+            System.out.printf("    replay mean %.3f ms, max %.3f ms over %d runs%n",
+                    stageTotals.getOrDefault(PipelineMetrics.Stage.PIPELINE.tag(), 0.0) / succeeded, worst, succeeded);
+            for (Map.Entry<String, Double> stage : stageTotals.entrySet()) {
+                Double original = request.originalStages() != null ? request.originalStages().get(stage.getKey()) : null;
+                System.out.printf("    %-20s replay %10.3f ms   captured %s%n", stage.getKey(),
+                        stage.getValue() / succeeded, original != null ? String.format("%10.3f ms", original) : "-");
+            }
+        }
+    }
+
+    // Accepts the endpoint document, a single window or a bare array of captured requests
+    private static List<Captured> read(JsonNode root) {
+        List<JsonNode> nodes = new ArrayList<>();
+        if (root.has("windows")) {
+            root.path("windows").forEach(window -> window.path("slowest").forEach(nodes::add));
+        } else if (root.has("slowest")) {
+            root.path("slowest").forEach(nodes::add);
+        } else {
+            root.forEach(nodes::add);
+        }
+
+        List<Captured> captured = new ArrayList<>(nodes.size());
+        for (JsonNode node : nodes) {
+            NewsAnalysisRequest request = new NewsAnalysisRequest(text(node, "title"), text(node, "content"),
+                    text(node, "sourceUrl"), text(node, "author"), text(node, "requestedLanguage"));
+            Map<String, Double> stages = null;
+            if (node.hasNonNull("stagesMs")) {
+                stages = new LinkedHashMap<>();
+                Map<String, Double> target = stages;
+                node.path("stagesMs").fields().forEachRemaining(stage -> target.put(stage.getKey(), stage.getValue().asDouble()));
+            }
+            captured.add(new Captured(node.path("durationMs").asDouble(), stages, text(node, "error"), request));
+        }
+        return captured;
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+}